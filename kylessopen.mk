@@ -102,6 +102,10 @@ PRODUCT_COPY_FILES += \
 PRODUCT_COPY_FILES += \
     device/samsung/kylessopen/prebuilt/system/etc/init.qcom.fm.sh:/system/etc/init.qcom.fm.sh
 
+# RIL
+PRODUCT_COPY_FILES += \
+    device/samsung/kylessopen/prebuilt/system/etc/ril_unsol_filter.conf:/system/etc/ril_unsol_filter.conf
+
 # FM Config
 PRODUCT_PROPERTY_OVERRIDES += \
     ro.fm.analogpath.supported=true \
@@ -0,0 +1,271 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Handler;
+import android.telephony.Rlog;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+
+/**
+ * Runs the "am" commands sent by the modem through RIL_UNSOL_AM in process.
+ *
+ * Only the broadcast and startservice verbs are supported, with the usual
+ * intent arguments (-a, -d, -t, -c, -n, -f) and the --es/--esn/--ei/--el/
+ * --ez/--ef extras. Anything else is rejected instead of being handed to a
+ * shell. Commands are queued on the given handler; when a burst exceeds
+ * MAX_PENDING commands the excess is dropped.
+ */
+class AmCommandDispatcher {
+    private static final String LOG_TAG = "RILJ";
+
+    private static final int MAX_PENDING = 16;
+
+    private static final int VERB_BROADCAST = 0;
+    private static final int VERB_START_SERVICE = 1;
+
+    private final Context mContext;
+    private final Handler mHandler;
+
+    private int mPending;
+    private int mBroadcasts;
+    private int mServices;
+    private int mRejected;
+    private int mDropped;
+
+    AmCommandDispatcher(Context context, Handler handler) {
+        mContext = context;
+        mHandler = handler;
+    }
+
+    void
+    dispatch(final String command) {
+        synchronized (this) {
+            if (mPending >= MAX_PENDING) {
+                mDropped++;
+                Rlog.w(LOG_TAG, "Dropping AM command, queue full: " + command);
+                return;
+            }
+            mPending++;
+        }
+
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (AmCommandDispatcher.this) {
+                    mPending--;
+                }
+                execute(command);
+            }
+        });
+    }
+
+    private void
+    execute(String command) {
+        ArrayList<String> args = tokenize(command);
+        Intent intent = new Intent();
+        int verb;
+
+        if (args == null || args.isEmpty()) {
+            reject(command, "unbalanced quotes or empty");
+            return;
+        }
+
+        String verbName = args.get(0);
+        if ("broadcast".equals(verbName)) {
+            verb = VERB_BROADCAST;
+        } else if ("startservice".equals(verbName)) {
+            verb = VERB_START_SERVICE;
+        } else {
+            reject(command, "unsupported verb " + verbName);
+            return;
+        }
+
+        try {
+            String error = parseIntent(args, intent);
+            if (error != null) {
+                reject(command, error);
+                return;
+            }
+        } catch (RuntimeException e) {
+            // Bad numbers, component names, ...
+            reject(command, e.toString());
+            return;
+        }
+
+        Rlog.d(LOG_TAG, "Executing AM: " + command);
+
+        try {
+            if (verb == VERB_BROADCAST) {
+                mContext.sendBroadcast(intent);
+                mBroadcasts++;
+            } else {
+                if (mContext.startService(intent) == null) {
+                    Rlog.w(LOG_TAG, "AM: no service found for " + intent);
+                }
+                mServices++;
+            }
+        } catch (SecurityException e) {
+            Rlog.e(LOG_TAG, "am " + command + " could not be executed.", e);
+        }
+    }
+
+    // Returns null on success, the reason for rejecting the command otherwise
+    private static String
+    parseIntent(ArrayList<String> args, Intent intent) {
+        Uri data = null;
+        String type = null;
+        int n = args.size();
+
+        for (int i = 1; i < n; i++) {
+            String opt = args.get(i);
+
+            if ("--user".equals(opt)) {
+                // Always runs as the current user, skip the argument
+                if (++i >= n) return "missing argument for " + opt;
+                continue;
+            } else if ("--include-stopped-packages".equals(opt)) {
+                intent.addFlags(Intent.FLAG_INCLUDE_STOPPED_PACKAGES);
+                continue;
+            } else if ("--exclude-stopped-packages".equals(opt)) {
+                intent.addFlags(Intent.FLAG_EXCLUDE_STOPPED_PACKAGES);
+                continue;
+            }
+
+            if ("--esn".equals(opt)) {
+                if (++i >= n) return "missing argument for " + opt;
+                intent.putExtra(args.get(i), (String) null);
+                continue;
+            }
+
+            if (opt.startsWith("--e")) {
+                if (i + 2 >= n) return "missing argument for " + opt;
+                String key = args.get(++i);
+                String value = args.get(++i);
+
+                if ("--es".equals(opt)) {
+                    intent.putExtra(key, value);
+                } else if ("--ei".equals(opt)) {
+                    intent.putExtra(key, Integer.decode(value));
+                } else if ("--el".equals(opt)) {
+                    intent.putExtra(key, Long.decode(value));
+                } else if ("--ez".equals(opt)) {
+                    intent.putExtra(key, Boolean.valueOf(value));
+                } else if ("--ef".equals(opt)) {
+                    intent.putExtra(key, Float.valueOf(value));
+                } else {
+                    return "unsupported option " + opt;
+                }
+                continue;
+            }
+
+            if (++i >= n) return "missing argument for " + opt;
+            String value = args.get(i);
+
+            if ("-a".equals(opt)) {
+                intent.setAction(value);
+            } else if ("-d".equals(opt)) {
+                data = Uri.parse(value);
+            } else if ("-t".equals(opt)) {
+                type = value;
+            } else if ("-c".equals(opt)) {
+                intent.addCategory(value);
+            } else if ("-n".equals(opt)) {
+                ComponentName cn = ComponentName.unflattenFromString(value);
+                if (cn == null) return "bad component name " + value;
+                intent.setComponent(cn);
+            } else if ("-f".equals(opt)) {
+                intent.setFlags(Integer.decode(value));
+            } else {
+                return "unsupported option " + opt;
+            }
+        }
+
+        intent.setDataAndType(data, type);
+
+        if (intent.getAction() == null && intent.getComponent() == null) {
+            return "no action or component";
+        }
+        return null;
+    }
+
+    // Splits like a shell would for simple quoting; null on unbalanced quotes
+    private static ArrayList<String>
+    tokenize(String command) {
+        ArrayList<String> args = new ArrayList<String>();
+        StringBuilder current = new StringBuilder();
+        boolean inToken = false;
+        char quote = 0;
+
+        for (int i = 0; i < command.length(); i++) {
+            char c = command.charAt(i);
+
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                } else if (c == '\\' && quote == '"' && i + 1 < command.length()) {
+                    current.append(command.charAt(++i));
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+                inToken = true;
+            } else if (c == '\\' && i + 1 < command.length()) {
+                current.append(command.charAt(++i));
+                inToken = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inToken) {
+                    args.add(current.toString());
+                    current.setLength(0);
+                    inToken = false;
+                }
+            } else {
+                current.append(c);
+                inToken = true;
+            }
+        }
+
+        if (quote != 0) {
+            return null;
+        }
+        if (inToken) {
+            args.add(current.toString());
+        }
+        return args;
+    }
+
+    private void
+    reject(String command, String reason) {
+        synchronized (this) {
+            mRejected++;
+        }
+        Rlog.e(LOG_TAG, "Rejected AM command (" + reason + "): " + command);
+    }
+
+    synchronized void
+    dump(PrintWriter pw) {
+        pw.println(" AmCommandDispatcher: pending=" + mPending
+                + " broadcasts=" + mBroadcasts + " services=" + mServices
+                + " rejected=" + mRejected + " dropped=" + mDropped);
+    }
+}
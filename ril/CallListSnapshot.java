@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import android.text.TextUtils;
+import android.util.SparseArray;
+
+import java.io.PrintWriter;
+
+/**
+ * The previous GET_CURRENT_CALLS result, keyed by call index.
+ *
+ * Each call of a new poll is decoded into a raw Call record first. If the
+ * record matches the previous poll the DriverCall built back then is
+ * reused, skipping the allocation and the number normalization. Calls that
+ * were not reported again are dropped from the snapshot in endPoll().
+ */
+class CallListSnapshot {
+
+    static final class Call {
+        int state;
+        int index;
+        int toa;
+        boolean isMpty;
+        boolean isMT;
+        int als;
+        boolean isVoice;
+        boolean isVideo;
+        boolean isVoicePrivacy;
+        String number;
+        int numberPresentation;
+        String name;
+        int namePresentation;
+        boolean hasUus;
+
+        DriverCall dc;
+        int generation;
+
+        boolean
+        sameAs(Call o) {
+            // UUS data is rare and not worth comparing, always rebuild those
+            return !hasUus && !o.hasUus
+                    && state == o.state
+                    && index == o.index
+                    && toa == o.toa
+                    && isMpty == o.isMpty
+                    && isMT == o.isMT
+                    && als == o.als
+                    && isVoice == o.isVoice
+                    && isVideo == o.isVideo
+                    && isVoicePrivacy == o.isVoicePrivacy
+                    && numberPresentation == o.numberPresentation
+                    && namePresentation == o.namePresentation
+                    && TextUtils.equals(number, o.number)
+                    && TextUtils.equals(name, o.name);
+        }
+
+        void
+        copyFrom(Call o) {
+            state = o.state;
+            index = o.index;
+            toa = o.toa;
+            isMpty = o.isMpty;
+            isMT = o.isMT;
+            als = o.als;
+            isVoice = o.isVoice;
+            isVideo = o.isVideo;
+            isVoicePrivacy = o.isVoicePrivacy;
+            number = o.number;
+            numberPresentation = o.numberPresentation;
+            name = o.name;
+            namePresentation = o.namePresentation;
+            hasUus = o.hasUus;
+        }
+    }
+
+    private final SparseArray<Call> mCalls = new SparseArray<Call>();
+    private int mGeneration;
+
+    // Last poll
+    private int mAdded;
+    private int mChanged;
+    private int mRemoved;
+
+    // Totals
+    private long mPolls;
+    private long mReused;
+    private long mRebuilt;
+
+    void
+    beginPoll() {
+        mGeneration++;
+        mAdded = 0;
+        mChanged = 0;
+        mRemoved = 0;
+        mPolls++;
+    }
+
+    /**
+     * @return the DriverCall of the previous poll if call did not change,
+     *         null if a new one has to be built and passed to update()
+     */
+    DriverCall
+    lookup(Call call) {
+        Call prev = mCalls.get(call.index);
+
+        if (prev != null && prev.sameAs(call)) {
+            prev.generation = mGeneration;
+            mReused++;
+            return prev.dc;
+        }
+        return null;
+    }
+
+    void
+    update(Call call, DriverCall dc) {
+        Call prev = mCalls.get(call.index);
+
+        if (prev == null) {
+            prev = new Call();
+            mCalls.put(call.index, prev);
+            mAdded++;
+        } else {
+            mChanged++;
+        }
+
+        prev.copyFrom(call);
+        prev.dc = dc;
+        prev.generation = mGeneration;
+        mRebuilt++;
+    }
+
+    void
+    endPoll() {
+        for (int i = mCalls.size() - 1; i >= 0; i--) {
+            if (mCalls.valueAt(i).generation != mGeneration) {
+                mCalls.removeAt(i);
+                mRemoved++;
+            }
+        }
+    }
+
+    boolean
+    hasChanges() {
+        return mAdded != 0 || mChanged != 0 || mRemoved != 0;
+    }
+
+    String
+    deltaString() {
+        return "added=" + mAdded + " changed=" + mChanged + " removed=" + mRemoved;
+    }
+
+    void
+    dump(PrintWriter pw) {
+        pw.println(" CallListSnapshot: calls=" + mCalls.size() + " polls=" + mPolls
+                + " reused=" + mReused + " rebuilt=" + mRebuilt
+                + " last poll: " + deltaString());
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import android.os.AsyncResult;
+import android.os.Registrant;
+
+import java.io.PrintWriter;
+
+/**
+ * Holds unsolicited responses that arrive before their registrant.
+ *
+ * During boot and after radio resets the modem sends NITZ, signal strength
+ * and CAT proactive commands before the framework has registered for them.
+ * Each type keeps its latest events up to a fixed capacity (the oldest is
+ * dropped when full) and they are replayed in order once the registrant
+ * attaches.
+ *
+ * Callers synchronize on the buffer around checking the registrant and
+ * saving or replaying, so no event can fall between the two.
+ */
+class EarlyEventBuffer {
+    static final int NITZ = 0;
+    static final int SIGNAL_STRENGTH = 1;
+    static final int CAT_PROACTIVE_CMD = 2;
+
+    private static final String[] TYPE_NAMES = { "NITZ", "SIGNAL_STRENGTH", "CAT_PROACTIVE_CMD" };
+
+    // Latest NITZ and signal strength are enough, CAT commands form a session
+    private static final int[] CAPACITY = { 1, 1, 4 };
+
+    private final Object[][] mEvents = new Object[CAPACITY.length][];
+    private final int[] mHead = new int[CAPACITY.length];
+    private final int[] mCount = new int[CAPACITY.length];
+
+    private final int[] mSaved = new int[CAPACITY.length];
+    private final int[] mDropped = new int[CAPACITY.length];
+    private final int[] mReplayed = new int[CAPACITY.length];
+
+    EarlyEventBuffer() {
+        for (int type = 0; type < CAPACITY.length; type++) {
+            mEvents[type] = new Object[CAPACITY[type]];
+        }
+    }
+
+    synchronized void
+    save(int type, Object event) {
+        Object[] events = mEvents[type];
+
+        if (mCount[type] == events.length) {
+            // Full, overwrite the oldest
+            events[mHead[type]] = event;
+            mHead[type] = (mHead[type] + 1) % events.length;
+            mDropped[type]++;
+        } else {
+            events[(mHead[type] + mCount[type]) % events.length] = event;
+            mCount[type]++;
+        }
+        mSaved[type]++;
+    }
+
+    synchronized void
+    replay(int type, Registrant registrant) {
+        Object[] events = mEvents[type];
+
+        while (mCount[type] > 0) {
+            Object event = events[mHead[type]];
+
+            events[mHead[type]] = null;
+            mHead[type] = (mHead[type] + 1) % events.length;
+            mCount[type]--;
+            mReplayed[type]++;
+
+            registrant.notifyRegistrant(new AsyncResult(null, event, null));
+        }
+    }
+
+    synchronized void
+    dump(PrintWriter pw) {
+        pw.println(" EarlyEventBuffer:");
+        for (int type = 0; type < CAPACITY.length; type++) {
+            pw.println("  " + TYPE_NAMES[type] + ": buffered=" + mCount[type]
+                    + " saved=" + mSaved[type] + " dropped=" + mDropped[type]
+                    + " replayed=" + mReplayed[type]);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import android.os.SystemProperties;
+import android.text.TextUtils;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+/**
+ * Emergency number check for dial(), same answers as
+ * PhoneNumberUtils.isEmergencyNumber().
+ *
+ * The ECC list (ril.ecclist, which rild fills from the SIM, else
+ * ro.ril.ecclist, else 112 and 911) is compiled into a trie over the
+ * dialable characters. It is only rebuilt when ril.ecclist changes; a
+ * check reads that one property and walks the dialed address in place,
+ * skipping the characters extractNetworkPortionAlt() would drop.
+ */
+class EmergencyNumberMatcher {
+    private static final String DEFAULT_LIST = "112,911";
+
+    // 0-9, '*', '#', '+' and the 'N' wild character
+    private static final int SYMBOLS = 14;
+
+    private final String mReadOnlyList = SystemProperties.get("ro.ril.ecclist");
+
+    private String mSource;
+    private int[] mNext = new int[SYMBOLS * 16]; // child node per symbol, 0 for none
+    private boolean[] mTerminal = new boolean[16];
+    private int mNodes;
+
+    private int mChecks;
+    private int mBuilds;
+
+    synchronized boolean
+    isEmergencyNumber(String address) {
+        if (address == null || address.indexOf('@') >= 0 || address.indexOf("%40") >= 0) {
+            // SIP addresses are never emergency numbers
+            return false;
+        }
+
+        String list = SystemProperties.get("ril.ecclist");
+        if (TextUtils.isEmpty(list)) {
+            list = TextUtils.isEmpty(mReadOnlyList) ? DEFAULT_LIST : mReadOnlyList;
+        }
+        if (!list.equals(mSource)) {
+            build(list);
+        }
+        mChecks++;
+
+        int node = 0;
+        boolean seenPlus = false;
+
+        for (int i = 0, len = address.length(); i < len; i++) {
+            char c = address.charAt(i);
+
+            if (c == '+') {
+                if (seenPlus) continue;
+                seenPlus = true;
+            }
+
+            int symbol = symbolOf(c);
+            if (symbol < 0) {
+                if (c == ',' || c == ';') {
+                    // Post dial digits (pause, wait)
+                    break;
+                }
+                continue;
+            }
+
+            node = mNext[node * SYMBOLS + symbol];
+            if (node == 0) {
+                return false;
+            }
+        }
+        return node != 0 && mTerminal[node];
+    }
+
+    private void
+    build(String list) {
+        mNodes = 1; // the root
+        Arrays.fill(mNext, 0);
+        Arrays.fill(mTerminal, false);
+
+        for (int start = 0, end; start <= list.length(); start = end + 1) {
+            end = list.indexOf(',', start);
+            if (end < 0) {
+                end = list.length();
+            }
+            insert(list, start, end);
+        }
+
+        mSource = list;
+        mBuilds++;
+    }
+
+    private void
+    insert(String list, int start, int end) {
+        int node = 0;
+
+        for (int i = start; i < end; i++) {
+            // Entries are compared as they are, one that is not dialable cannot match
+            if (symbolOf(list.charAt(i)) < 0) {
+                return;
+            }
+        }
+
+        for (int i = start; i < end; i++) {
+            int slot = node * SYMBOLS + symbolOf(list.charAt(i));
+
+            if (mNext[slot] == 0) {
+                if (mNodes == mTerminal.length) {
+                    grow();
+                }
+                mNext[slot] = mNodes++;
+            }
+            node = mNext[slot];
+        }
+        mTerminal[node] = true;
+    }
+
+    private void
+    grow() {
+        int[] next = new int[mNext.length * 2];
+        boolean[] terminal = new boolean[mTerminal.length * 2];
+
+        System.arraycopy(mNext, 0, next, 0, mNext.length);
+        System.arraycopy(mTerminal, 0, terminal, 0, mTerminal.length);
+        mNext = next;
+        mTerminal = terminal;
+    }
+
+    private static int
+    symbolOf(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        switch (c) {
+            case '*': return 10;
+            case '#': return 11;
+            case '+': return 12;
+            case 'N': return 13;
+            default: return -1;
+        }
+    }
+
+    synchronized void
+    dump(PrintWriter pw) {
+        pw.println(" EmergencyNumberMatcher: list=" + mSource + " nodes=" + mNodes
+                + " checks=" + mChecks + " builds=" + mBuilds);
+    }
+}
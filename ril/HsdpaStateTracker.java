@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import android.os.Handler;
+import android.os.SystemProperties;
+import android.telephony.ServiceState;
+
+import java.io.PrintWriter;
+
+/**
+ * Decides when RIL_UNSOL_HSDPA_STATE_CHANGED needs a network state poll.
+ *
+ * The current data network type is tracked from the DATA_REGISTRATION_STATE
+ * responses instead of being read back from gsm.network.type. At cell edges
+ * the modem toggles the HSDPA state in bursts; a mismatch only schedules a
+ * check after the debounce window, so a burst results in at most one poll.
+ */
+class HsdpaStateTracker {
+
+    interface Callback {
+        void onNetworkStatePollNeeded();
+    }
+
+    private static final int TYPE_UNKNOWN = -1;
+    private static final int TYPE_OTHER = 0;
+    private static final int TYPE_UMTS = 1;
+    private static final int TYPE_HSDPA = 2;
+
+    private final Handler mHandler;
+    private final Callback mCallback;
+    private final long mDebounceMs;
+
+    private int mDataType = TYPE_UNKNOWN;
+    private boolean mReportedHsdpa;
+    private boolean mCheckScheduled;
+
+    private int mReports;
+    private int mMerged;
+    private int mPolls;
+
+    private final Runnable mCheck = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (HsdpaStateTracker.this) {
+                mCheckScheduled = false;
+                if (needsPoll()) {
+                    mPolls++;
+                    mCallback.onNetworkStatePollNeeded();
+                }
+            }
+        }
+    };
+
+    HsdpaStateTracker(Handler handler, Callback callback, long debounceMs) {
+        mHandler = handler;
+        mCallback = callback;
+        mDebounceMs = debounceMs;
+    }
+
+    synchronized void
+    onDataRegistrationState(String[] response) {
+        if (response == null || response.length < 4 || response[3] == null) {
+            return;
+        }
+
+        int radioTech;
+        try {
+            radioTech = Integer.parseInt(response[3]);
+        } catch (NumberFormatException e) {
+            return;
+        }
+
+        switch (radioTech) {
+            case ServiceState.RIL_RADIO_TECHNOLOGY_UMTS: mDataType = TYPE_UMTS; break;
+            case ServiceState.RIL_RADIO_TECHNOLOGY_HSDPA: mDataType = TYPE_HSDPA; break;
+            default: mDataType = TYPE_OTHER; break;
+        }
+    }
+
+    synchronized void
+    onHsdpaStateChanged(boolean hsdpa) {
+        mReports++;
+        mReportedHsdpa = hsdpa;
+
+        if (mCheckScheduled) {
+            // Part of a burst, the pending check looks at the latest state
+            mMerged++;
+            return;
+        }
+
+        if (!needsPoll()) {
+            return;
+        }
+
+        if (mDebounceMs <= 0) {
+            mPolls++;
+            mCallback.onNetworkStatePollNeeded();
+            return;
+        }
+
+        mCheckScheduled = true;
+        mHandler.postDelayed(mCheck, mDebounceMs);
+    }
+
+    private boolean
+    needsPoll() {
+        if (mDataType == TYPE_UNKNOWN) {
+            // No registration response seen yet, start from what the framework has
+            String curState = SystemProperties.get(TelephonyProperties.PROPERTY_DATA_NETWORK_TYPE);
+            if (curState.startsWith("HSDPA")) {
+                mDataType = TYPE_HSDPA;
+            } else if (curState.startsWith("UMTS")) {
+                mDataType = TYPE_UMTS;
+            } else {
+                mDataType = TYPE_OTHER;
+            }
+        }
+
+        // Don't send poll request if not on 3g
+        if (mDataType == TYPE_OTHER) {
+            return false;
+        }
+
+        return (mDataType == TYPE_HSDPA) != mReportedHsdpa;
+    }
+
+    synchronized void
+    dump(PrintWriter pw) {
+        pw.println(" HsdpaStateTracker: dataType=" + mDataType
+                + " debounceMs=" + mDebounceMs + " reports=" + mReports
+                + " merged=" + mMerged + " polls=" + mPolls);
+    }
+}
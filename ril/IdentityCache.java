@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import android.os.AsyncResult;
+import android.os.Message;
+import android.util.SparseArray;
+
+import java.io.PrintWriter;
+import java.util.HashMap;
+
+import static com.android.internal.telephony.RILConstants.*;
+
+/**
+ * Remembers the answers to identity queries that do not change while the
+ * radio stays up.
+ *
+ * IMEI, IMEISV, baseband version and device identity are kept until the
+ * radio is reset; IMSI (per application id) and the CDMA subscription
+ * until the SIM status changes. Only successful responses to requests sent
+ * since the last invalidation are stored, so a response that was already
+ * in flight when the SIM changed cannot bring back an old value.
+ */
+class IdentityCache {
+
+    private static class Pending {
+        final int mRequest;
+        final String mAid; // "" when none
+
+        Pending(int request, String aid) {
+            mRequest = request;
+            mAid = aid;
+        }
+    }
+
+    private final SparseArray<Object> mDevice = new SparseArray<Object>();
+    private final HashMap<String, Object> mImsi = new HashMap<String, Object>();
+    private Object mCdmaSubscription;
+
+    // serial -> requests sent since the last invalidation of their value
+    private final SparseArray<Pending> mPending = new SparseArray<Pending>();
+
+    private int mHits;
+    private int mMisses;
+    private int mInvalidations;
+
+    static boolean
+    isCached(int request) {
+        switch (request) {
+            case RIL_REQUEST_GET_IMEI:
+            case RIL_REQUEST_GET_IMEISV:
+            case RIL_REQUEST_BASEBAND_VERSION:
+            case RIL_REQUEST_DEVICE_IDENTITY:
+            case RIL_REQUEST_GET_IMSI:
+            case RIL_REQUEST_CDMA_SUBSCRIPTION:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Answers result from the cache.
+     *
+     * @return false on a miss, the request then has to be sent
+     */
+    boolean
+    answer(int request, String aid, Message result) {
+        Object value;
+
+        synchronized (this) {
+            value = get(request, aid);
+            if (value == null) {
+                mMisses++;
+                return false;
+            }
+            mHits++;
+        }
+
+        if (value instanceof String[]) {
+            // Callers own their result
+            value = ((String[]) value).clone();
+        }
+        if (result != null) {
+            AsyncResult.forMessage(result, value, null);
+            result.sendToTarget();
+        }
+        return true;
+    }
+
+    synchronized void
+    onSend(int serial, int request, String aid) {
+        mPending.put(serial, new Pending(request, aid == null ? "" : aid));
+    }
+
+    synchronized void
+    onResponse(int serial, int request, Object ret) {
+        int index = mPending.indexOfKey(serial);
+
+        if (index < 0) {
+            return;
+        }
+        String aid = mPending.valueAt(index).mAid;
+        mPending.removeAt(index);
+
+        if (ret == null) {
+            return;
+        }
+        switch (request) {
+            case RIL_REQUEST_GET_IMSI: mImsi.put(aid, ret); break;
+            case RIL_REQUEST_CDMA_SUBSCRIPTION: mCdmaSubscription = ret; break;
+            default: mDevice.put(request, ret); break;
+        }
+    }
+
+    private Object
+    get(int request, String aid) {
+        switch (request) {
+            case RIL_REQUEST_GET_IMSI: return mImsi.get(aid == null ? "" : aid);
+            case RIL_REQUEST_CDMA_SUBSCRIPTION: return mCdmaSubscription;
+            default: return mDevice.get(request);
+        }
+    }
+
+    /**
+     * Forgets the values tied to the SIM.
+     */
+    synchronized void
+    invalidateSim() {
+        mImsi.clear();
+        mCdmaSubscription = null;
+        for (int i = mPending.size() - 1; i >= 0; i--) {
+            if (isSimValue(mPending.valueAt(i).mRequest)) {
+                mPending.removeAt(i);
+            }
+        }
+        mInvalidations++;
+    }
+
+    /**
+     * Forgets everything, the modem may come back with a different identity.
+     */
+    synchronized void
+    invalidateAll() {
+        mDevice.clear();
+        mImsi.clear();
+        mCdmaSubscription = null;
+        mPending.clear();
+        mInvalidations++;
+    }
+
+    private static boolean
+    isSimValue(int request) {
+        return request == RIL_REQUEST_GET_IMSI || request == RIL_REQUEST_CDMA_SUBSCRIPTION;
+    }
+
+    synchronized void
+    dump(PrintWriter pw) {
+        pw.println(" IdentityCache: hits=" + mHits + " misses=" + mMisses
+                + " invalidations=" + mInvalidations + " device=" + mDevice.size()
+                + " imsi=" + mImsi.size() + " cdmaSubscription=" + (mCdmaSubscription != null));
+    }
+}
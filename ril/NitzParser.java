@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+/**
+ * Single pass parser for RIL_UNSOL_NITZ_TIME_RECEIVED strings.
+ *
+ * AOSP format is "yy/mm/dd,hh:mm:ss(+/-)tz[,dt]" where tz is in quarter
+ * hours. Samsung basebands append one more ",xx" field which the framework
+ * does not understand; normalize() strips it without splitting the string.
+ * The date, time, zone and DST of the last string are kept as primitives
+ * for callers that want them. Not thread safe, one instance per caller.
+ */
+class NitzParser {
+    // Fields the string has once Samsung added its own
+    private static final int SAMSUNG_FIELD_COUNT = 9;
+
+    // Fields kept as primitives: yy, mm, dd, hh, mm, ss, tz, dt
+    private static final int MAX_FIELDS = SAMSUNG_FIELD_COUNT - 1;
+    private static final int TZ_FIELD = 6;
+
+    // Values of mFields besides the parsed numbers
+    private static final int ABSENT = -1;
+    private static final int MALFORMED = -2;
+
+    private final int[] mFields = new int[MAX_FIELDS];
+    private int mFieldCount;
+    private boolean mNegativeTz;
+
+    /**
+     * Parses nitz and returns it without the Samsung trailing field. The
+     * same instance is returned if nothing had to be stripped.
+     */
+    String
+    normalize(String nitz) {
+        int length = nitz.length();
+        int field = 0;
+        int lastNonEmpty = -1;
+        int lastComma = -1;
+        int lastNonEmptyAtComma = -1;
+
+        mNegativeTz = false;
+        for (int i = 0; i < MAX_FIELDS; i++) {
+            mFields[i] = ABSENT;
+        }
+
+        for (int i = 0; i < length; i++) {
+            char c = nitz.charAt(i);
+
+            switch (c) {
+                case ',':
+                    lastComma = i;
+                    lastNonEmptyAtComma = lastNonEmpty;
+                    field++;
+                    break;
+                case '-':
+                    if (field == TZ_FIELD - 1) mNegativeTz = true;
+                    field++;
+                    break;
+                case '/': case ':': case '+':
+                    field++;
+                    break;
+                default:
+                    lastNonEmpty = field;
+                    if (field < MAX_FIELDS) {
+                        int value = mFields[field];
+                        if (c < '0' || c > '9') {
+                            mFields[field] = MALFORMED;
+                        } else if (value != MALFORMED) {
+                            mFields[field] = (value == ABSENT ? 0 : value * 10) + (c - '0');
+                        }
+                    }
+                    break;
+            }
+        }
+
+        // Trailing empty fields are not counted, like String.split()
+        mFieldCount = lastNonEmpty + 1;
+
+        if (mFieldCount >= SAMSUNG_FIELD_COUNT && lastComma >= 0) {
+            mFieldCount = lastNonEmptyAtComma + 1;
+            return nitz.substring(0, lastComma);
+        }
+        return nitz;
+    }
+
+    /** Number of fields of the last string, after stripping. */
+    int getFieldCount() { return mFieldCount; }
+
+    /** Two digit year, or -1 if absent or malformed. */
+    int getYear() { return field(0); }
+    int getMonth() { return field(1); }
+    int getDay() { return field(2); }
+    int getHour() { return field(3); }
+    int getMinute() { return field(4); }
+    int getSecond() { return field(5); }
+
+    /** Whether the last string had a well formed time zone. */
+    boolean hasTz() { return mFields[TZ_FIELD] >= 0; }
+
+    /** Time zone offset in quarter hours, 0 if absent or malformed. */
+    int
+    getTzQuarterHours() {
+        int tz = hasTz() ? mFields[TZ_FIELD] : 0;
+        return mNegativeTz ? -tz : tz;
+    }
+
+    /** Daylight saving adjustment in hours, or -1 if not reported. */
+    int getDst() { return field(TZ_FIELD + 1); }
+
+    private int
+    field(int index) {
+        return mFields[index] >= 0 ? mFields[index] : ABSENT;
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+
+import java.util.Arrays;
+
+/**
+ * The base RIL's mRequestList as a table indexed by serial.
+ *
+ * The base class only uses mRequestList as a map from serial to request:
+ * its sender appends every request it writes, its receiver looks answers
+ * up by serial and clearRequestList() walks everything by index. SparseArray
+ * pays a binary search for each lookup; here insert, lookup, remove and
+ * indexed access are a single array access.
+ *
+ * Serials are handed out sequentially, so as long as the table is larger
+ * than the range of outstanding serials, serial modulo capacity gives each
+ * request a slot of its own. A collision means a request stayed outstanding
+ * while capacity newer ones were sent: the table doubles, up to
+ * MAX_CAPACITY, after which colliding serials go to a SparseIntArray.
+ *
+ * The values are kept dense, which makes index i in keyAt() and valueAt()
+ * meaningful the way the base class uses it. Removing moves the last entry
+ * into the freed index.
+ *
+ * Callers synchronize on the instance, like on mRequestList.
+ */
+class PendingRequestList extends SparseArray<RILRequest> {
+    private static final int INITIAL_CAPACITY = 64; // powers of two
+    private static final int MAX_CAPACITY = 1024;
+
+    // serial modulo capacity -> dense index + 1, 0 for an empty slot
+    private int[] mSlots = new int[INITIAL_CAPACITY];
+    private int mMask = INITIAL_CAPACITY - 1;
+
+    // serial -> dense index, for the serials whose slot was taken
+    private final SparseIntArray mOverflow = new SparseIntArray();
+
+    private int[] mKeys = new int[INITIAL_CAPACITY];
+    private RILRequest[] mValues = new RILRequest[INITIAL_CAPACITY];
+    private int mSize;
+
+    PendingRequestList() {
+        super(0);
+    }
+
+    @Override
+    public RILRequest
+    get(int key) {
+        return get(key, null);
+    }
+
+    @Override
+    public RILRequest
+    get(int key, RILRequest valueIfKeyNotFound) {
+        int index = indexOfKey(key);
+        return index >= 0 ? mValues[index] : valueIfKeyNotFound;
+    }
+
+    /** Removes and returns the request of key, or null. */
+    RILRequest
+    take(int key) {
+        int index = indexOfKey(key);
+        if (index < 0) {
+            return null;
+        }
+        RILRequest rr = mValues[index];
+        removeAt(index);
+        return rr;
+    }
+
+    @Override
+    public void
+    put(int key, RILRequest value) {
+        int index = indexOfKey(key);
+        if (index >= 0) {
+            mValues[index] = value;
+            return;
+        }
+
+        while (mSize == mKeys.length
+                || (mSlots[key & mMask] != 0 && mSlots.length < MAX_CAPACITY)) {
+            grow();
+        }
+
+        index = mSize++;
+        mKeys[index] = key;
+        mValues[index] = value;
+        place(key, index);
+    }
+
+    @Override
+    public void
+    append(int key, RILRequest value) {
+        put(key, value);
+    }
+
+    @Override
+    public void
+    delete(int key) {
+        int index = indexOfKey(key);
+        if (index >= 0) {
+            removeAt(index);
+        }
+    }
+
+    @Override
+    public void
+    remove(int key) {
+        delete(key);
+    }
+
+    @Override
+    public void
+    removeAt(int index) {
+        int last = mSize - 1;
+
+        unplace(mKeys[index], index);
+        if (index != last) {
+            // Keep the values dense: the last entry takes the freed index
+            unplace(mKeys[last], last);
+            mKeys[index] = mKeys[last];
+            mValues[index] = mValues[last];
+            place(mKeys[index], index);
+        }
+        mValues[last] = null;
+        mSize = last;
+    }
+
+    @Override
+    public void
+    removeAtRange(int index, int size) {
+        // Removing moves the last entry into index, so go from the end
+        for (int i = Math.min(mSize, index + size) - 1; i >= index; i--) {
+            removeAt(i);
+        }
+    }
+
+    @Override
+    public int
+    size() {
+        return mSize;
+    }
+
+    @Override
+    public int
+    keyAt(int index) {
+        return mKeys[index];
+    }
+
+    @Override
+    public RILRequest
+    valueAt(int index) {
+        return mValues[index];
+    }
+
+    @Override
+    public void
+    setValueAt(int index, RILRequest value) {
+        mValues[index] = value;
+    }
+
+    @Override
+    public int
+    indexOfKey(int key) {
+        int entry = mSlots[key & mMask];
+        if (entry != 0 && mKeys[entry - 1] == key) {
+            return entry - 1;
+        }
+        return mOverflow.size() > 0 ? mOverflow.get(key, -1) : -1;
+    }
+
+    @Override
+    public int
+    indexOfValue(RILRequest value) {
+        for (int i = 0; i < mSize; i++) {
+            if (mValues[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void
+    clear() {
+        for (int i = 0; i < mSize; i++) {
+            mSlots[mKeys[i] & mMask] = 0;
+            mValues[i] = null;
+        }
+        mOverflow.clear();
+        mSize = 0;
+    }
+
+    @Override
+    public String
+    toString() {
+        StringBuilder sb = new StringBuilder(mSize * 16);
+        sb.append('{');
+        for (int i = 0; i < mSize; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(mKeys[i]).append('=').append(mValues[i]);
+        }
+        return sb.append('}').toString();
+    }
+
+    private void
+    place(int key, int index) {
+        int slot = key & mMask;
+        if (mSlots[slot] == 0) {
+            mSlots[slot] = index + 1;
+        } else {
+            mOverflow.put(key, index);
+        }
+    }
+
+    private void
+    unplace(int key, int index) {
+        int slot = key & mMask;
+        if (mSlots[slot] == index + 1) {
+            mSlots[slot] = 0;
+        } else {
+            mOverflow.delete(key);
+        }
+    }
+
+    private void
+    grow() {
+        if (mSlots.length < MAX_CAPACITY) {
+            mSlots = new int[mSlots.length * 2];
+            mMask = mSlots.length - 1;
+        } else {
+            Arrays.fill(mSlots, 0);
+        }
+        if (mSize == mKeys.length) {
+            mKeys = Arrays.copyOf(mKeys, mKeys.length * 2);
+            mValues = Arrays.copyOf(mValues, mValues.length * 2);
+        }
+
+        mOverflow.clear();
+        for (int i = 0; i < mSize; i++) {
+            place(mKeys[i], i);
+        }
+    }
+}
@@ -0,0 +1,436 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import android.os.AsyncResult;
+import android.os.Handler;
+import android.os.Message;
+import android.os.SystemClock;
+import android.os.SystemProperties;
+import android.telephony.Rlog;
+import android.util.SparseArray;
+
+import com.android.internal.telephony.dataconnection.DataCallResponse;
+import com.android.internal.telephony.dataconnection.DcFailCause;
+
+import java.io.PrintWriter;
+
+/**
+ * Starts and stops the pppd_cdma service used for data calls on Samsung
+ * CDMA devices.
+ *
+ * Setting ril.cdma.data_state=1 (re)starts pppd_cdma, which sets it to 2
+ * once the link is up. The state is polled on the given handler instead of
+ * the RIL receiver thread, and the SETUP_DATA_CALL result is sent when the
+ * link is up or the deadline has passed.
+ *
+ * With a standby period set, a deactivation is answered at once but the
+ * link is parked: pppd_cdma keeps running and the call stays up in rild.
+ * A setup with the same parameters within the standby period is answered
+ * with the parked call and the addresses pppd_cdma left in net.<ifname>.*,
+ * without going to rild. Anything else, or the period running out, tears
+ * the parked call down for real first.
+ */
+class PppdCdmaController {
+    private static final String LOG_TAG = "RILJ";
+
+    interface Callback {
+        /** Sends the DEACTIVATE_DATA_CALL that was held back for cid. */
+        void deactivateDataCall(int cid);
+    }
+
+    private static final String PROP_DATA_STATE = "ril.cdma.data_state";
+
+    // Typically takes < 200 ms, so poll fast for the first second and then
+    // slow down, giving up after about 10 s.
+    private static final int FAST_POLL_MS = 100;
+    private static final int FAST_POLL_COUNT = 10;
+    private static final int SLOW_POLL_MS = 1000;
+    private static final long TIMEOUT_MS = 10000;
+
+    /** Decoded SETUP_DATA_CALL response waiting for pppd_cdma. */
+    static final class PendingSetup {
+        final DataCallResponse mDataCall;
+        final String mTtyName;
+        String mKey; // null if not sent through onSetupSent()
+        long mRequestTime;
+        Message mResult;
+        long mStartTime;
+        int mPolls;
+
+        PendingSetup(DataCallResponse dataCall, String ttyName) {
+            mDataCall = dataCall;
+            mTtyName = ttyName;
+        }
+    }
+
+    /** Parameters and send time of a SETUP_DATA_CALL sent to rild. */
+    private static final class Request {
+        final String mKey;
+        final long mTime;
+
+        Request(String key, long time) {
+            mKey = key;
+            mTime = time;
+        }
+    }
+
+    private final Handler mHandler;
+    private final long mStandbyMs;
+    private final Callback mCallback;
+    private PendingSetup mPending;
+
+    // The connected call, and the one parked after its deactivation
+    private PendingSetup mActive;
+    private PendingSetup mParked;
+
+    // SETUP_DATA_CALLs sent to rild and not answered yet, by serial
+    private final SparseArray<Request> mRequests = new SparseArray<Request>();
+
+    private int mSetups;
+    private int mConnected;
+    private int mTimeouts;
+    private int mAborted;
+    private int mCompleted;
+    private long mTotalWaitMs;
+    private long mMaxWaitMs;
+    private long mLastWaitMs;
+
+    private int mColdSetups;
+    private long mColdTotalMs;
+    private long mColdMaxMs;
+    private int mWarmSetups;
+    private long mWarmTotalMs;
+    private long mWarmMaxMs;
+    private int mParkedCount;
+    private int mExpired;
+    private int mMismatched;
+
+    private final Runnable mPoll = new Runnable() {
+        @Override
+        public void run() {
+            poll();
+        }
+    };
+
+    private final Runnable mStandbyExpired = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (PppdCdmaController.this) {
+                if (mParked != null) {
+                    Rlog.d(LOG_TAG, "pppd_cdma standby expired.");
+                    mExpired++;
+                    tearDownParked();
+                }
+            }
+        }
+    };
+
+    /**
+     * @param standbyMs how long a deactivated link is kept, 0 to tear it
+     * down right away
+     */
+    PppdCdmaController(Handler handler, long standbyMs, Callback callback) {
+        mHandler = handler;
+        mStandbyMs = standbyMs;
+        mCallback = callback;
+    }
+
+    /**
+     * Called for every setupDataCall, key identifies its parameters and
+     * requestTime is when setupDataCall was called.
+     *
+     * @return true if result was answered with the parked call, otherwise
+     * the request has to be sent and onSetupSent() called
+     */
+    synchronized boolean
+    onSetupRequested(String key, long requestTime, Message result) {
+        if (mParked == null) {
+            return false;
+        }
+
+        PendingSetup parked = mParked;
+        DataCallResponse dataCall = new DataCallResponse();
+        dataCall.cid = parked.mDataCall.cid;
+        readLinkProperties(dataCall);
+
+        if (!key.equals(parked.mKey) || SystemProperties.getInt(PROP_DATA_STATE, 0) != 2
+                || !dataCall.ifname.equals(parked.mDataCall.ifname)
+                || dataCall.addresses[0].length() == 0) {
+            Rlog.d(LOG_TAG, "Parked pppd_cdma link does not match the new setup.");
+            mMismatched++;
+            tearDownParked();
+            return false;
+        }
+
+        mHandler.removeCallbacks(mStandbyExpired);
+        mParked = null;
+        mActive = new PendingSetup(dataCall, parked.mTtyName);
+        mActive.mKey = key;
+        mActive.mRequestTime = requestTime;
+
+        Rlog.d(LOG_TAG, "SETUP_DATA_CALL reused the parked pppd_cdma link: " + dataCall);
+
+        if (result != null) {
+            AsyncResult.forMessage(result, dataCall, null);
+            result.sendToTarget();
+        }
+
+        // Timed like cold setups, from the request until the answer is sent
+        long elapsed = SystemClock.elapsedRealtime() - requestTime;
+        mWarmSetups++;
+        mWarmTotalMs += elapsed;
+        mWarmMaxMs = Math.max(mWarmMaxMs, elapsed);
+        return true;
+    }
+
+    /**
+     * Called once the SETUP_DATA_CALL for key, requested at requestTime,
+     * is sent as serial.
+     */
+    synchronized void
+    onSetupSent(int serial, String key, long requestTime) {
+        mRequests.put(serial, new Request(key, requestTime));
+    }
+
+    /**
+     * Called for a SETUP_DATA_CALL answered without a PendingSetup, failed
+     * or not.
+     */
+    synchronized void
+    onSetupAnswered(int serial) {
+        mRequests.remove(serial);
+    }
+
+    static PendingSetup
+    prepare(DataCallResponse dataCall, String ttyName) {
+        return new PendingSetup(dataCall, ttyName);
+    }
+
+    /**
+     * Starts pppd_cdma for setup, the response to serial; result is sent
+     * once it is connected or failed to connect in time.
+     */
+    synchronized void
+    start(PendingSetup setup, int serial, Message result) {
+        Request request = mRequests.get(serial);
+        long now = SystemClock.elapsedRealtime();
+
+        mRequests.remove(serial);
+        if (request != null) {
+            setup.mKey = request.mKey;
+            setup.mRequestTime = request.mTime;
+        } else {
+            // Not sent through setupDataCall, never parked
+            setup.mRequestTime = now;
+        }
+
+        if (mPending != null) {
+            Rlog.w(LOG_TAG, "pppd_cdma setup superseded by a new one");
+            complete(false);
+        }
+
+        setup.mResult = result;
+        setup.mStartTime = now;
+        mPending = setup;
+        mSetups++;
+
+        SystemProperties.set("net.cdma.datalinkinterface", setup.mTtyName);
+
+        // Connecting: Set ril.cdma.data_state=1 to (re)start pppd_cdma service,
+        // which responds by setting ril.cdma.data_state=2 once connection is up.
+        SystemProperties.set(PROP_DATA_STATE, "1");
+        Rlog.d(LOG_TAG, "Set ril.cdma.data_state=1, waiting for ril.cdma.data_state=2.");
+
+        mHandler.postDelayed(mPoll, FAST_POLL_MS);
+    }
+
+    /**
+     * Parks the connected call cid instead of deactivating it, answering
+     * result as if it had been.
+     *
+     * @return false if the call has to be deactivated now
+     */
+    synchronized boolean
+    park(int cid, Message result) {
+        if (mStandbyMs <= 0 || mPending != null || mActive == null
+                || mActive.mDataCall.cid != cid) {
+            return false;
+        }
+
+        mParked = mActive;
+        mActive = null;
+        mParkedCount++;
+        mHandler.postDelayed(mStandbyExpired, mStandbyMs);
+        Rlog.d(LOG_TAG, "Parked pppd_cdma link of cid " + cid + " for " + mStandbyMs + " ms.");
+
+        if (result != null) {
+            AsyncResult.forMessage(result, null, null);
+            result.sendToTarget();
+        }
+        return true;
+    }
+
+    /** Forgets the parked call, rild is gone and took it along. */
+    synchronized void
+    onRadioUnavailable() {
+        mRequests.clear();
+        mActive = null;
+        if (mParked != null) {
+            mHandler.removeCallbacks(mStandbyExpired);
+            mParked = null;
+            Rlog.d(LOG_TAG, "Set ril.cdma.data_state=0.");
+            SystemProperties.set(PROP_DATA_STATE, "0");
+        }
+    }
+
+    private void
+    tearDownParked() {
+        int cid = mParked.mDataCall.cid;
+
+        mHandler.removeCallbacks(mStandbyExpired);
+        mParked = null;
+
+        Rlog.d(LOG_TAG, "Set ril.cdma.data_state=0.");
+        SystemProperties.set(PROP_DATA_STATE, "0");
+        mCallback.deactivateDataCall(cid);
+    }
+
+    /**
+     * Stops pppd_cdma for the deactivation of cid, failing a setup of cid
+     * that is still waiting for it. pppd_cdma is left running if it was
+     * (re)started for another call since.
+     */
+    synchronized void
+    stop(int cid) {
+        PendingSetup current = mPending != null ? mPending : mActive;
+
+        if (current != null && current.mDataCall.cid != cid) {
+            Rlog.d(LOG_TAG, "pppd_cdma is up for cid " + current.mDataCall.cid
+                    + ", not stopping it for cid " + cid + ".");
+            return;
+        }
+
+        mActive = null;
+        if (mParked != null) {
+            tearDownParked();
+        }
+
+        if (mPending != null) {
+            Rlog.d(LOG_TAG, "pppd_cdma stopped while a setup was pending.");
+            mAborted++;
+            complete(false);
+        }
+
+        // Disconnect: Set ril.cdma.data_state=0 to stop pppd_cdma service.
+        Rlog.d(LOG_TAG, "Set ril.cdma.data_state=0.");
+        SystemProperties.set(PROP_DATA_STATE, "0");
+    }
+
+    private synchronized void
+    poll() {
+        if (mPending == null) {
+            return;
+        }
+
+        mPending.mPolls++;
+
+        if (SystemProperties.getInt(PROP_DATA_STATE, 1) == 2) {
+            Rlog.d(LOG_TAG, "Got ril.cdma.data_state=2, connected.");
+            mConnected++;
+            complete(true);
+            return;
+        }
+
+        long waited = SystemClock.elapsedRealtime() - mPending.mStartTime;
+        if (waited >= TIMEOUT_MS) {
+            // Disconnect: Set ril.cdma.data_state=0 to stop pppd_cdma service.
+            Rlog.d(LOG_TAG, "Didn't get ril.cdma.data_state=2 timely, aborting.");
+            SystemProperties.set(PROP_DATA_STATE, "0");
+            mTimeouts++;
+            complete(false);
+            return;
+        }
+
+        mHandler.postDelayed(mPoll,
+                mPending.mPolls < FAST_POLL_COUNT ? FAST_POLL_MS : SLOW_POLL_MS);
+    }
+
+    private void
+    complete(boolean connected) {
+        PendingSetup setup = mPending;
+        DataCallResponse dataCall = setup.mDataCall;
+
+        mPending = null;
+        mHandler.removeCallbacks(mPoll);
+
+        mCompleted++;
+        mLastWaitMs = SystemClock.elapsedRealtime() - setup.mStartTime;
+        mTotalWaitMs += mLastWaitMs;
+        mMaxWaitMs = Math.max(mMaxWaitMs, mLastWaitMs);
+
+        if (connected) {
+            readLinkProperties(dataCall);
+            mActive = setup;
+        } else {
+            // pppd_cdma service didn't respond timely.
+            dataCall.status = DcFailCause.ERROR_UNSPECIFIED.getErrorCode();
+        }
+
+        Rlog.d(LOG_TAG, "SETUP_DATA_CALL completed after " + mLastWaitMs + " ms: " + dataCall);
+
+        if (setup.mResult != null) {
+            AsyncResult.forMessage(setup.mResult, dataCall, null);
+            setup.mResult.sendToTarget();
+        }
+
+        if (connected) {
+            long setupMs = SystemClock.elapsedRealtime() - setup.mRequestTime;
+            mColdSetups++;
+            mColdTotalMs += setupMs;
+            mColdMaxMs = Math.max(mColdMaxMs, setupMs);
+        }
+    }
+
+    // pppd_cdma service responded, pull network parameters set by ip-up script.
+    private static void
+    readLinkProperties(DataCallResponse dataCall) {
+        dataCall.ifname = SystemProperties.get("net.cdma.ppp.interface");
+        String   ifprop = "net." + dataCall.ifname;
+
+        dataCall.addresses = new String[] {SystemProperties.get(ifprop + ".local-ip")};
+        dataCall.gateways  = new String[] {SystemProperties.get(ifprop + ".remote-ip")};
+        dataCall.dnses     = new String[] {SystemProperties.get(ifprop + ".dns1"),
+                                           SystemProperties.get(ifprop + ".dns2")};
+    }
+
+    synchronized void
+    dump(PrintWriter pw) {
+        pw.println(" PppdCdmaController: pending=" + (mPending != null)
+                + " setups=" + mSetups + " connected=" + mConnected
+                + " timeouts=" + mTimeouts + " aborted=" + mAborted
+                + " waitMs(last/avg/max)=" + mLastWaitMs + "/"
+                + (mCompleted > 0 ? mTotalWaitMs / mCompleted : 0) + "/" + mMaxWaitMs);
+        pw.println("  standbyMs=" + mStandbyMs + " parked=" + (mParked != null)
+                + " parkedCount=" + mParkedCount + " expired=" + mExpired
+                + " mismatched=" + mMismatched);
+        pw.println("  cold: setups=" + mColdSetups + " setupMs(avg/max)="
+                + (mColdSetups > 0 ? mColdTotalMs / mColdSetups : 0) + "/" + mColdMaxMs
+                + " warm: setups=" + mWarmSetups + " setupMs(avg/max)="
+                + (mWarmSetups > 0 ? mWarmTotalMs / mWarmSetups : 0) + "/" + mWarmMaxMs);
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import android.os.Handler;
+import android.os.SystemClock;
+
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+
+import static com.android.internal.telephony.RILConstants.*;
+
+/**
+ * Orders outgoing requests by priority class.
+ *
+ * rild handles one request at a time, so whatever has already been sent
+ * delays an ANSWER or HANGUP. Emergency and call control requests are
+ * always sent at once. Interactive and bulk requests (SIM phonebook
+ * reads, network scans) share a small number of requests
+ * in flight, bulk having a smaller cap of its own; the rest waits here.
+ * When a slot frees up interactive requests go first, unless the oldest
+ * bulk request has waited longer than AGING_MS.
+ *
+ * A request is in flight from being sent until it leaves the pending
+ * list (see SamsungRIL.removeRequest), or at once if it could not be sent
+ * at all. Slots of requests that never come back are reclaimed after
+ * STALE_MS, or SLOW_STALE_MS for network scans and manual selection which
+ * take longer than that, and all of them when the radio becomes
+ * unavailable. Staleness is checked on submit and, while requests are
+ * queued, every STALE_CHECK_MS.
+ *
+ * SMS segments do not come through here, SmsSendWindow keeps them in order.
+ */
+class RequestScheduler {
+
+    interface Sender {
+        /**
+         * @return false if rr was failed without being sent
+         */
+        boolean sendNow(RILRequest rr);
+    }
+
+    static final int EMERGENCY = 0;
+    static final int CALL_CONTROL = 1;
+    static final int INTERACTIVE = 2;
+    static final int BULK = 3;
+
+    private static final String[] CLASS_NAMES = { "EMERGENCY", "CALL_CONTROL", "INTERACTIVE", "BULK" };
+
+    private static final long AGING_MS = 2000;
+    private static final long STALE_MS = 30000;
+    private static final long SLOW_STALE_MS = 180000;
+    private static final long STALE_CHECK_MS = 5000;
+
+    private static class Entry {
+        final RILRequest mRequest;
+        final long mQueueTime;
+
+        Entry(RILRequest rr, long queueTime) {
+            mRequest = rr;
+            mQueueTime = queueTime;
+        }
+    }
+
+    private final Sender mSender;
+    private final Handler mHandler;
+    private final int mSharedCap;
+    private final int mBulkCap;
+
+    private final ArrayDeque<Entry> mInteractive = new ArrayDeque<Entry>();
+    private final ArrayDeque<Entry> mBulk = new ArrayDeque<Entry>();
+
+    // Interactive and bulk requests in flight, by serial
+    private final SendTimeTable mInFlight = new SendTimeTable();
+    private final int[] mInFlightCount = new int[CLASS_NAMES.length];
+
+    private final int[] mSent = new int[CLASS_NAMES.length];
+    private final int[] mQueued = new int[CLASS_NAMES.length];
+    private final long[] mDelaySumMs = new long[CLASS_NAMES.length];
+    private final long[] mMaxDelayMs = new long[CLASS_NAMES.length];
+    private int mPromoted;
+    private int mReclaimed;
+    private boolean mStaleCheckPosted;
+
+    private final Runnable mStaleCheck = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (RequestScheduler.this) {
+                mStaleCheckPosted = false;
+                if (reclaimStale(SystemClock.elapsedRealtime())) {
+                    dispatchQueued();
+                }
+                postStaleCheck();
+            }
+        }
+    };
+
+    RequestScheduler(Sender sender, Handler handler, int sharedCap, int bulkCap) {
+        mSender = sender;
+        mHandler = handler;
+        mSharedCap = Math.max(1, sharedCap);
+        mBulkCap = Math.max(1, Math.min(bulkCap, mSharedCap));
+    }
+
+    static int
+    classify(int request) {
+        switch (request) {
+            case SamsungRIL.RIL_REQUEST_DIAL_EMERGENCY:
+                return EMERGENCY;
+
+            case RIL_REQUEST_DIAL:
+            case RIL_REQUEST_ANSWER:
+            case RIL_REQUEST_HANGUP:
+            case RIL_REQUEST_HANGUP_WAITING_OR_BACKGROUND:
+            case RIL_REQUEST_HANGUP_FOREGROUND_RESUME_BACKGROUND:
+            case RIL_REQUEST_SWITCH_WAITING_OR_HOLDING_AND_ACTIVE:
+            case RIL_REQUEST_CONFERENCE:
+            case RIL_REQUEST_UDUB:
+            case RIL_REQUEST_SEPARATE_CONNECTION:
+            case RIL_REQUEST_EXPLICIT_CALL_TRANSFER:
+            case RIL_REQUEST_DTMF:
+            case RIL_REQUEST_DTMF_START:
+            case RIL_REQUEST_DTMF_STOP:
+            case RIL_REQUEST_CDMA_BURST_DTMF:
+            case RIL_REQUEST_CDMA_FLASH:
+            case RIL_REQUEST_GET_CURRENT_CALLS:
+            case RIL_REQUEST_LAST_CALL_FAIL_CAUSE:
+            case RIL_REQUEST_RADIO_POWER:
+                return CALL_CONTROL;
+
+            case RIL_REQUEST_SIM_IO:
+            case RIL_REQUEST_QUERY_AVAILABLE_NETWORKS:
+            case RIL_REQUEST_GET_NEIGHBORING_CELL_IDS:
+            case RIL_REQUEST_WRITE_SMS_TO_SIM:
+            case RIL_REQUEST_DELETE_SMS_ON_SIM:
+            case RIL_REQUEST_CDMA_WRITE_SMS_TO_RUIM:
+            case RIL_REQUEST_CDMA_DELETE_SMS_ON_RUIM:
+                return BULK;
+
+            default:
+                return INTERACTIVE;
+        }
+    }
+
+    private static long
+    staleMs(int request) {
+        switch (request) {
+            case RIL_REQUEST_QUERY_AVAILABLE_NETWORKS:
+            case RIL_REQUEST_SET_NETWORK_SELECTION_MANUAL:
+                return SLOW_STALE_MS;
+
+            default:
+                return STALE_MS;
+        }
+    }
+
+    synchronized void
+    submit(RILRequest rr) {
+        int cls = classify(rr.mRequest);
+        long now = SystemClock.elapsedRealtime();
+
+        if (cls == EMERGENCY || cls == CALL_CONTROL) {
+            mSent[cls]++;
+            mSender.sendNow(rr);
+            return;
+        }
+
+        boolean reclaimed = false;
+        if (mInFlightCount[INTERACTIVE] + mInFlightCount[BULK] >= mSharedCap) {
+            reclaimed = reclaimStale(now);
+        }
+
+        ArrayDeque<Entry> queue = cls == BULK ? mBulk : mInteractive;
+        if (queue.isEmpty() && hasSlot(cls)) {
+            dispatch(cls, rr, now, now);
+        } else {
+            queue.addLast(new Entry(rr, now));
+            mQueued[cls]++;
+        }
+
+        if (reclaimed) {
+            dispatchQueued();
+        }
+        postStaleCheck();
+    }
+
+    /**
+     * Called when serial leaves the pending list, answered or failed.
+     */
+    synchronized void
+    onComplete(int serial) {
+        if (remove(serial)) {
+            dispatchQueued();
+        }
+    }
+
+    /**
+     * Sends everything queued, nothing in flight will be answered.
+     */
+    synchronized void
+    onRadioUnavailable() {
+        long now = SystemClock.elapsedRealtime();
+
+        mInFlight.clear();
+        mInFlightCount[INTERACTIVE] = 0;
+        mInFlightCount[BULK] = 0;
+        while (!mInteractive.isEmpty()) {
+            Entry e = mInteractive.removeFirst();
+            dispatch(INTERACTIVE, e.mRequest, e.mQueueTime, now);
+        }
+        while (!mBulk.isEmpty()) {
+            Entry e = mBulk.removeFirst();
+            dispatch(BULK, e.mRequest, e.mQueueTime, now);
+        }
+    }
+
+    // Nothing may come back to free a slot for what is queued
+    private void
+    postStaleCheck() {
+        if (!mStaleCheckPosted && !(mInteractive.isEmpty() && mBulk.isEmpty())) {
+            mHandler.postDelayed(mStaleCheck, STALE_CHECK_MS);
+            mStaleCheckPosted = true;
+        }
+    }
+
+    private boolean
+    hasSlot(int cls) {
+        if (mInFlightCount[INTERACTIVE] + mInFlightCount[BULK] >= mSharedCap) {
+            return false;
+        }
+        return cls != BULK || mInFlightCount[BULK] < mBulkCap;
+    }
+
+    private void
+    dispatchQueued() {
+        long now = SystemClock.elapsedRealtime();
+
+        while (true) {
+            Entry bulk = mBulk.peekFirst();
+            boolean bulkReady = bulk != null && hasSlot(BULK);
+            boolean interactiveReady = !mInteractive.isEmpty() && hasSlot(INTERACTIVE);
+
+            if (bulkReady && (!interactiveReady || now - bulk.mQueueTime >= AGING_MS)) {
+                if (interactiveReady) {
+                    // Waited too long behind interactive requests
+                    mPromoted++;
+                }
+                mBulk.removeFirst();
+                dispatch(BULK, bulk.mRequest, bulk.mQueueTime, now);
+            } else if (interactiveReady) {
+                Entry e = mInteractive.removeFirst();
+                dispatch(INTERACTIVE, e.mRequest, e.mQueueTime, now);
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void
+    dispatch(int cls, RILRequest rr, long queueTime, long now) {
+        // sendNow() may fail and release rr, after which it could be reused
+        int serial = rr.mSerial;
+        long delay = now - queueTime;
+
+        mDelaySumMs[cls] += delay;
+        if (delay > mMaxDelayMs[cls]) {
+            mMaxDelayMs[cls] = delay;
+        }
+        mSent[cls]++;
+
+        int evicted = mInFlight.put(serial, rr.mRequest, now);
+        if (evicted >= 0) {
+            mInFlightCount[classify(evicted)]--;
+            mReclaimed++;
+        }
+        mInFlightCount[cls]++;
+        if (!mSender.sendNow(rr)) {
+            // Already failed, it will never leave the pending list
+            remove(serial);
+        }
+    }
+
+    private boolean
+    remove(int serial) {
+        int request = mInFlight.getRequest(serial);
+
+        if (request < 0) {
+            return false;
+        }
+        mInFlight.remove(serial);
+        mInFlightCount[classify(request)]--;
+        return true;
+    }
+
+    private boolean
+    reclaimStale(final long now) {
+        final int[] stale = new int[mInFlight.size()];
+        final int[] count = new int[1];
+
+        mInFlight.forEachOlderThan(now - STALE_MS, new SendTimeTable.Visitor() {
+            @Override
+            public void visit(int serial, int request, long sendTime) {
+                if (now - sendTime >= staleMs(request)) {
+                    stale[count[0]++] = serial;
+                }
+            }
+        });
+        for (int i = 0; i < count[0]; i++) {
+            remove(stale[i]);
+            mReclaimed++;
+        }
+        return count[0] > 0;
+    }
+
+    synchronized void
+    dump(PrintWriter pw) {
+        pw.println(" RequestScheduler: sharedCap=" + mSharedCap + " bulkCap=" + mBulkCap
+                + " queued=" + (mInteractive.size() + mBulk.size())
+                + " promoted=" + mPromoted + " reclaimed=" + mReclaimed);
+        for (int cls = 0; cls < CLASS_NAMES.length; cls++) {
+            pw.println("  " + CLASS_NAMES[cls] + ": sent=" + mSent[cls]
+                    + " inFlight=" + mInFlightCount[cls] + " queued=" + mQueued[cls]
+                    + " avgDelayMs=" + (mSent[cls] > 0 ? mDelaySumMs[cls] / mSent[cls] : 0)
+                    + " maxDelayMs=" + mMaxDelayMs[cls]);
+        }
+    }
+}
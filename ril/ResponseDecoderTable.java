@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import android.os.Parcel;
+import android.util.SparseArray;
+
+/**
+ * Maps solicited request ids to the decoder used for their response parcel.
+ *
+ * Standard AOSP ids are dense and live in a plain array indexed by id, the
+ * vendor ids (10000 and up) are kept in a small sparse table.
+ */
+class ResponseDecoderTable {
+
+    interface Decoder {
+        Object decode(Parcel p);
+    }
+
+    // First id that is stored in the sparse table instead of the dense array
+    static final int VENDOR_REQUEST_BASE = 10000;
+
+    private Decoder[] mDense = new Decoder[128];
+    private final SparseArray<Decoder> mSparse = new SparseArray<Decoder>();
+
+    void
+    put(int request, Decoder decoder) {
+        if (request < 0) {
+            throw new IllegalArgumentException("Invalid request id: " + request);
+        }
+
+        if (request >= VENDOR_REQUEST_BASE) {
+            mSparse.put(request, decoder);
+            return;
+        }
+
+        if (request >= mDense.length) {
+            Decoder[] grown = new Decoder[Math.max(request + 1, mDense.length * 2)];
+            System.arraycopy(mDense, 0, grown, 0, mDense.length);
+            mDense = grown;
+        }
+        mDense[request] = decoder;
+    }
+
+    Decoder
+    get(int request) {
+        if (request >= 0 && request < mDense.length) {
+            return mDense[request];
+        }
+        return request >= VENDOR_REQUEST_BASE ? mSparse.get(request) : null;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import android.os.Parcel;
+import android.os.SystemClock;
+import android.telephony.Rlog;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.BufferOverflowException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Opt-in binary capture of the raw RIL socket traffic.
+ *
+ * Every parcel is appended to a memory mapped file as a record, see
+ * RilCaptureFormat for the layout. RilCaptureReplayer feeds a capture back
+ * through the decoders. The file has a fixed size, capturing stops once it
+ * is full.
+ */
+class RilCapture {
+    private static final String LOG_TAG = "RILJ";
+
+    private MappedByteBuffer mBuffer;
+    private int mRecords;
+    private int mDropped;
+
+    RilCapture(String path, int size) {
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(path, "rw");
+            file.setLength(size);
+            mBuffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            mBuffer.order(ByteOrder.LITTLE_ENDIAN);
+            mBuffer.putInt(RilCaptureFormat.MAGIC);
+            mBuffer.putInt(RilCaptureFormat.VERSION);
+            mBuffer.putInt(RilCaptureFormat.HEADER_SIZE);
+            mBuffer.putInt(0);
+            Rlog.d(LOG_TAG, "Capturing RIL traffic to " + path);
+        } catch (IOException e) {
+            Rlog.e(LOG_TAG, "Unable to open RIL capture file " + path, e);
+            mBuffer = null;
+        } finally {
+            if (file != null) {
+                // The mapping stays valid after the file is closed
+                try { file.close(); } catch (IOException e) { }
+            }
+        }
+    }
+
+    boolean
+    isEnabled() {
+        return mBuffer != null;
+    }
+
+    void
+    capture(byte direction, Parcel p) {
+        if (mBuffer == null) {
+            return;
+        }
+        write(direction, p.marshall());
+    }
+
+    private synchronized void
+    write(byte direction, byte[] data) {
+        int start = mBuffer.position();
+
+        try {
+            mBuffer.putInt(data.length);
+            mBuffer.put(direction);
+            mBuffer.putLong(SystemClock.elapsedRealtimeNanos());
+            mBuffer.put(data);
+        } catch (BufferOverflowException e) {
+            mBuffer.position(start);
+            mDropped++;
+            return;
+        }
+
+        // Publish the new end so a partially written capture stays readable
+        mBuffer.putInt(8, mBuffer.position());
+        mRecords++;
+    }
+
+    synchronized void
+    dump(PrintWriter pw) {
+        if (mBuffer == null) {
+            return;
+        }
+        pw.println(" RilCapture: records=" + mRecords + " bytes=" + mBuffer.position()
+                + "/" + mBuffer.capacity() + " dropped=" + mDropped);
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+/**
+ * Layout of the files written by RilCapture, little endian: a 16 byte
+ * header (magic, version, end offset, reserved) followed by records of
+ *
+ *   int length, byte direction, long elapsedRealtimeNanos, byte[length] parcel
+ *
+ * The parcel bytes are exactly what went over the rild socket. Only plain
+ * constants, so that the host tools can build this file without android.*.
+ */
+final class RilCaptureFormat {
+    static final int MAGIC = 0x524c4331; // "RLC1"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;   // magic, version, end offset, reserved
+    static final int RECORD_HEADER_SIZE = 13; // length, direction, time
+
+    // Record directions
+    static final byte SOLICITED = 0;
+    static final byte UNSOLICITED = 1;
+    static final byte REQUEST = 2;
+
+    private RilCaptureFormat() { }
+}
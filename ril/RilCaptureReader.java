@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads the records of a capture written by RilCapture, see
+ * RilCaptureFormat for the layout.
+ *
+ * Only uses java.* and RilCaptureFormat, so the host tool in
+ * rilcapture/ builds it as well. RilCaptureReplayer turns the records
+ * back into Parcels for the decoders on the device.
+ */
+class RilCaptureReader {
+
+    interface Sink {
+        void onRecord(byte direction, long timeNanos, byte[] parcel);
+    }
+
+    private final MappedByteBuffer mBuffer;
+    private final int mEnd;
+
+    RilCaptureReader(String path) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(path, "r");
+        try {
+            mBuffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+        } finally {
+            file.close();
+        }
+        mBuffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (mBuffer.getInt(0) != RilCaptureFormat.MAGIC || mBuffer.getInt(4) != RilCaptureFormat.VERSION) {
+            throw new IOException("Not a RIL capture: " + path);
+        }
+        mEnd = mBuffer.getInt(8);
+    }
+
+    /**
+     * Hands every record to sink, either as fast as possible or keeping the
+     * original spacing between records.
+     *
+     * @return number of records replayed
+     */
+    int
+    replay(Sink sink, boolean realtime) throws InterruptedException {
+        long firstCapture = -1;
+        long firstReplay = System.nanoTime();
+        int records = 0;
+
+        mBuffer.position(RilCaptureFormat.HEADER_SIZE);
+        while (mBuffer.position() + RilCaptureFormat.RECORD_HEADER_SIZE <= mEnd) {
+            int length = mBuffer.getInt();
+            byte direction = mBuffer.get();
+            long time = mBuffer.getLong();
+
+            if (length < 0 || mBuffer.position() + length > mEnd) {
+                break; // truncated record
+            }
+
+            byte[] parcel = new byte[length];
+            mBuffer.get(parcel);
+
+            if (realtime) {
+                if (firstCapture < 0) {
+                    firstCapture = time;
+                }
+                long delay = (time - firstCapture) - (System.nanoTime() - firstReplay);
+                if (delay > 0) {
+                    Thread.sleep(delay / 1000000, (int) (delay % 1000000));
+                }
+            }
+
+            sink.onRecord(direction, time, parcel);
+            records++;
+        }
+        return records;
+    }
+
+    // Parcel ints are host order, which is little endian on all our targets
+    static int
+    readInt(byte[] parcel, int index) {
+        int off = index * 4;
+        if (parcel.length < off + 4) {
+            return -1;
+        }
+        return (parcel[off] & 0xff) | (parcel[off + 1] & 0xff) << 8
+                | (parcel[off + 2] & 0xff) << 16 | (parcel[off + 3] & 0xff) << 24;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import android.os.Parcel;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+
+import java.io.PrintWriter;
+
+/**
+ * Feeds the responses of a capture through the response decoders.
+ *
+ * Requests are matched to their response by serial, like processSolicited
+ * does, and each response parcel with a payload is handed to the Decoder
+ * of its request. Counts decoded and failed responses and the time spent
+ * decoding per request id. Unsolicited responses are decoded as well when
+ * an unsolicited Decoder is given, which notifies registrants and so is
+ * only done on the host; otherwise they are only counted.
+ */
+class RilCaptureReplayer implements RilCaptureReader.Sink {
+
+    interface Decoder {
+        /**
+         * Decodes the response to request from p, without side effects
+         * on the live RIL. An unsolicited p is positioned at its response
+         * id, like processUnsolicited gets it.
+         */
+        Object decode(int request, Parcel p);
+    }
+
+    private static class Stats {
+        int mDecoded;
+        int mFailed;
+        long mNanos;
+    }
+
+    private final Decoder mDecoder;
+    private final Decoder mUnsolicitedDecoder;
+
+    // serial -> request id of the requests not answered yet
+    private final SparseIntArray mRequests = new SparseIntArray();
+    private final SparseArray<Stats> mStats = new SparseArray<Stats>();
+    private final SparseArray<Stats> mUnsolicitedStats = new SparseArray<Stats>();
+
+    private int mUnsolicited;
+    private int mUnmatched;
+    private int mErrors;
+
+    /**
+     * @param unsolicitedDecoder null to only count unsolicited responses
+     */
+    RilCaptureReplayer(Decoder decoder, Decoder unsolicitedDecoder) {
+        mDecoder = decoder;
+        mUnsolicitedDecoder = unsolicitedDecoder;
+    }
+
+    @Override
+    public void
+    onRecord(byte direction, long timeNanos, byte[] parcel) {
+        if (direction == RilCaptureFormat.REQUEST) {
+            // request id, serial, ...
+            mRequests.put(RilCaptureReader.readInt(parcel, 1),
+                    RilCaptureReader.readInt(parcel, 0));
+            return;
+        }
+        if (direction != RilCaptureFormat.SOLICITED) {
+            mUnsolicited++;
+            if (mUnsolicitedDecoder != null) {
+                // type, id, ...
+                decode(mUnsolicitedDecoder, mUnsolicitedStats,
+                        RilCaptureReader.readInt(parcel, 1), parcel, 4);
+            }
+            return;
+        }
+
+        // type, serial, error, ...
+        int index = mRequests.indexOfKey(RilCaptureReader.readInt(parcel, 1));
+        if (index < 0) {
+            mUnmatched++;
+            return;
+        }
+        int request = mRequests.valueAt(index);
+        mRequests.removeAt(index);
+
+        if (RilCaptureReader.readInt(parcel, 2) != 0 && parcel.length <= 12) {
+            mErrors++;
+            return;
+        }
+        decode(mDecoder, mStats, request, parcel, 12);
+    }
+
+    private static void
+    decode(Decoder decoder, SparseArray<Stats> statsById, int id, byte[] parcel,
+            int position) {
+        Stats stats = statsById.get(id);
+        if (stats == null) {
+            stats = new Stats();
+            statsById.put(id, stats);
+        }
+
+        Parcel p = Parcel.obtain();
+        try {
+            p.unmarshall(parcel, 0, parcel.length);
+            p.setDataPosition(position);
+
+            long start = System.nanoTime();
+            try {
+                decoder.decode(id, p);
+                stats.mDecoded++;
+            } catch (RuntimeException e) {
+                stats.mFailed++;
+            }
+            stats.mNanos += System.nanoTime() - start;
+        } finally {
+            p.recycle();
+        }
+    }
+
+    void
+    dump(PrintWriter pw, int records, long elapsedNanos) {
+        pw.println(" RilCaptureReplayer: records=" + records + " in "
+                + (elapsedNanos / 1000000) + "ms unsolicited=" + mUnsolicited
+                + " unmatched=" + mUnmatched + " errors=" + mErrors);
+        for (int i = 0; i < mStats.size(); i++) {
+            dump(pw, RIL.requestToString(mStats.keyAt(i)), mStats.valueAt(i));
+        }
+        for (int i = 0; i < mUnsolicitedStats.size(); i++) {
+            dump(pw, RIL.responseToString(mUnsolicitedStats.keyAt(i)),
+                    mUnsolicitedStats.valueAt(i));
+        }
+    }
+
+    private static void
+    dump(PrintWriter pw, String name, Stats stats) {
+        int total = stats.mDecoded + stats.mFailed;
+
+        pw.println("  " + name + ": decoded=" + stats.mDecoded + " failed=" + stats.mFailed
+                + " avgUs=" + (total > 0 ? stats.mNanos / total / 1000 : 0));
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import android.os.SystemClock;
+import android.util.SparseArray;
+
+import java.io.PrintWriter;
+
+/**
+ * Per request id latency histograms for solicited requests.
+ *
+ * A request is timed from send() until its response is matched by serial
+ * in processSolicited. Latencies go into log2 millisecond buckets, so each
+ * request id costs a fixed amount of memory and p50/p99 are reported as
+ * the upper bound of the bucket they fall in. max is exact.
+ */
+class RilLatencyStats {
+    // Bucket 0 is < 1 ms, bucket n is [2^(n-1), 2^n) ms, the last one is open
+    private static final int BUCKETS = 18;
+
+    // Outstanding longer than this is reported as stuck by dump()
+    private static final long STUCK_MS = 10000;
+
+    private static class Histogram {
+        final int[] mBuckets = new int[BUCKETS];
+        int mCount;
+        int mErrors;
+        long mMaxMs;
+    }
+
+    private final SparseArray<Histogram> mHistograms = new SparseArray<Histogram>();
+
+    // Requests whose response never comes are evicted when their slot is reused
+    private final SendTimeTable mPending = new SendTimeTable();
+    private int mUnexpected;
+    private int mUntimed;
+    private int mUnsent;
+
+    synchronized void
+    onSend(int serial, int request) {
+        mPending.put(serial, request, SystemClock.elapsedRealtime());
+    }
+
+    /**
+     * Forgets serial, it could not be written to rild and will not be
+     * answered.
+     */
+    synchronized void
+    onSendFailed(int serial) {
+        if (mPending.remove(serial) >= 0) {
+            mUnsent++;
+        }
+    }
+
+    /**
+     * Forgets all outstanding requests, rild drops them when it reconnects.
+     */
+    synchronized void
+    onConnected() {
+        mPending.clear();
+    }
+
+    /**
+     * @param request the request id, or -1 when no request matched serial
+     */
+    synchronized void
+    onResponse(int serial, int request, int error) {
+        if (request < 0) {
+            mUnexpected++;
+            return;
+        }
+
+        long sendTime = mPending.remove(serial);
+        if (sendTime < 0) {
+            mUntimed++;
+            return;
+        }
+        long latencyMs = SystemClock.elapsedRealtime() - sendTime;
+
+        Histogram h = mHistograms.get(request);
+        if (h == null) {
+            h = new Histogram();
+            mHistograms.put(request, h);
+        }
+
+        h.mBuckets[bucketOf(latencyMs)]++;
+        h.mCount++;
+        if (error != 0) {
+            h.mErrors++;
+        }
+        if (latencyMs > h.mMaxMs) {
+            h.mMaxMs = latencyMs;
+        }
+    }
+
+    private static int
+    bucketOf(long ms) {
+        int bucket = 64 - Long.numberOfLeadingZeros(ms);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    // Upper bound in ms of the bucket holding the given percentile
+    private static String
+    percentile(Histogram h, int percent) {
+        long rank = ((long) h.mCount * percent + 99) / 100;
+        long seen = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += h.mBuckets[i];
+            if (seen >= rank) {
+                return i == BUCKETS - 1 ? ">" + (1L << (i - 1)) : "<" + (1L << i);
+            }
+        }
+        return "-";
+    }
+
+    synchronized void
+    dump(final PrintWriter pw) {
+        final long now = SystemClock.elapsedRealtime();
+
+        pw.println(" RilLatencyStats: outstanding=" + mPending.size()
+                + " evicted=" + mPending.getEvicted()
+                + " unexpected=" + mUnexpected + " untimed=" + mUntimed
+                + " unsent=" + mUnsent);
+        mPending.forEachOlderThan(now - STUCK_MS, new SendTimeTable.Visitor() {
+            @Override
+            public void visit(int serial, int request, long sendTime) {
+                pw.println("  stuck [" + serial + "] " + SamsungRIL.requestToString(request)
+                        + " for " + (now - sendTime) + "ms");
+            }
+        });
+        for (int i = 0; i < mHistograms.size(); i++) {
+            Histogram h = mHistograms.valueAt(i);
+
+            pw.println("  " + SamsungRIL.requestToString(mHistograms.keyAt(i))
+                    + ": count=" + h.mCount + " errors=" + h.mErrors
+                    + " p50=" + percentile(h, 50) + "ms p99=" + percentile(h, 99)
+                    + "ms max=" + h.mMaxMs + "ms");
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import android.os.SystemClock;
+import android.os.SystemProperties;
+
+import java.io.PrintWriter;
+
+/**
+ * Cached reads of the system properties used on the RIL hot paths.
+ *
+ * The change callback only fires when a process pokes the property
+ * service after setting a property, which the phone process does not do
+ * for its own gsm.* properties. Values are therefore also dropped after
+ * a TTL and by the events known to change them (see invalidate()).
+ */
+class RilProperties {
+    static final int SIM_STATE = 0;
+    static final int PRL_VERSION = 1;
+
+    private static final String[] KEYS = {
+        TelephonyProperties.PROPERTY_SIM_STATE,
+        "ril.prl_ver_1",
+    };
+
+    // Only this value is cached, null for any. A SIM that is not READY yet
+    // is about to change state and is checked on every read.
+    private static final String[] CACHED_VALUE = {
+        "READY",
+        null,
+    };
+
+    private static final long TTL_MS = 5000;
+
+    private final String[] mValues = new String[KEYS.length];
+    private final long[] mReadTime = new long[KEYS.length];
+
+    private int mReads;
+    private int mAvoided;
+
+    RilProperties() {
+        SystemProperties.addChangeCallback(new Runnable() {
+            @Override
+            public void run() {
+                invalidateAll();
+            }
+        });
+    }
+
+    synchronized String
+    get(int property) {
+        long now = SystemClock.uptimeMillis();
+
+        if (mValues[property] != null && now - mReadTime[property] < TTL_MS) {
+            mAvoided++;
+            return mValues[property];
+        }
+
+        String value = SystemProperties.get(KEYS[property]);
+        mReads++;
+
+        if (CACHED_VALUE[property] == null || CACHED_VALUE[property].equals(value)) {
+            mValues[property] = value;
+            mReadTime[property] = now;
+        } else {
+            mValues[property] = null;
+        }
+        return value;
+    }
+
+    synchronized void
+    invalidate(int property) {
+        mValues[property] = null;
+    }
+
+    synchronized void
+    invalidateAll() {
+        for (int i = 0; i < KEYS.length; i++) {
+            mValues[i] = null;
+        }
+    }
+
+    synchronized void
+    dump(PrintWriter pw) {
+        pw.println(" RilProperties: reads=" + mReads + " avoided=" + mAvoided);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import android.os.Parcel;
+import android.os.PowerManager;
+import android.telephony.Rlog;
+
+import java.io.PrintWriter;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Moves decoding and dispatching off the RIL receiver thread.
+ *
+ * The receiver thread only copies each parcel into a bounded single
+ * producer, single consumer ring; a decode thread drains it in order.
+ * The ring is only full when decoding falls CAPACITY parcels behind, in
+ * which case the receiver waits and the stall is counted.
+ *
+ * A wakelock is held for every parcel in the ring, so the device cannot
+ * suspend between reading a response and handling it.
+ */
+class RilReceivePipeline implements Runnable {
+    private static final String LOG_TAG = "RILJ";
+
+    static final int SOLICITED = 0;
+    static final int UNSOLICITED = 1;
+
+    interface Stage {
+        void process(int type, Parcel p, RILRequest rr);
+    }
+
+    private static final int CAPACITY = 256; // must be a power of two
+    private static final int MASK = CAPACITY - 1;
+    private static final long STALL_PARK_NS = 100000;
+
+    private final Stage mStage;
+    private final PowerManager.WakeLock mWakeLock;
+    private final Thread mThread;
+
+    private final int[] mTypes = new int[CAPACITY];
+    private final Parcel[] mParcels = new Parcel[CAPACITY];
+    private final RILRequest[] mRequests = new RILRequest[CAPACITY];
+
+    // mTail is only written by the receiver, mHead only by the decode thread
+    private volatile long mHead;
+    private volatile long mTail;
+
+    // Written by the receiver thread
+    private int mMaxDepth;
+    private long mDepthSum;
+    private int mStalls;
+    private long mStallNs;
+    private long mMaxStallNs;
+
+    RilReceivePipeline(Stage stage, PowerManager.WakeLock wakeLock) {
+        mStage = stage;
+        mWakeLock = wakeLock;
+        mThread = new Thread(this, "RILDecoder");
+        mThread.start();
+    }
+
+    /**
+     * Queues the rest of p (from its current position) for the decode
+     * thread. Called from the receiver thread only.
+     */
+    void
+    post(int type, Parcel p, RILRequest rr) {
+        Parcel copy = Parcel.obtain();
+        copy.appendFrom(p, p.dataPosition(), p.dataAvail());
+        copy.setDataPosition(0);
+
+        long tail = mTail;
+        if (tail - mHead == CAPACITY) {
+            long start = System.nanoTime();
+
+            do {
+                LockSupport.parkNanos(STALL_PARK_NS);
+            } while (tail - mHead == CAPACITY);
+
+            long stall = System.nanoTime() - start;
+            mStalls++;
+            mStallNs += stall;
+            if (stall > mMaxStallNs) {
+                mMaxStallNs = stall;
+            }
+        }
+
+        int depth = (int) (tail - mHead) + 1;
+        mDepthSum += depth;
+        if (depth > mMaxDepth) {
+            mMaxDepth = depth;
+        }
+
+        int slot = (int) (tail & MASK);
+        mTypes[slot] = type;
+        mParcels[slot] = copy;
+        mRequests[slot] = rr;
+
+        mWakeLock.acquire();
+        mTail = tail + 1;
+        LockSupport.unpark(mThread);
+    }
+
+    @Override
+    public void
+    run() {
+        while (true) {
+            long head = mHead;
+
+            if (head == mTail) {
+                LockSupport.park(this);
+                continue;
+            }
+
+            int slot = (int) (head & MASK);
+            Parcel p = mParcels[slot];
+            RILRequest rr = mRequests[slot];
+            mParcels[slot] = null;
+            mRequests[slot] = null;
+
+            try {
+                mStage.process(mTypes[slot], p, rr);
+            } catch (Throwable tr) {
+                Rlog.e(LOG_TAG, "Uncaught exception decoding response", tr);
+            } finally {
+                p.recycle();
+                mHead = head + 1;
+                mWakeLock.release();
+            }
+        }
+    }
+
+    void
+    dump(PrintWriter pw) {
+        long tail = mTail;
+        long head = mHead;
+
+        pw.println(" RilReceivePipeline: posted=" + tail + " depth=" + (tail - head)
+                + " maxDepth=" + mMaxDepth
+                + " avgDepth=" + (tail > 0 ? mDepthSum / tail : 0)
+                + " stalls=" + mStalls + " stallMs=" + (mStallNs / 1000000)
+                + " maxStallMs=" + (mMaxStallNs / 1000000));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import android.os.SystemClock;
+
+import java.io.PrintWriter;
+
+/**
+ * Low overhead tracing for the RIL hot paths.
+ *
+ * Text logging is gated per category so that disabled categories cost a
+ * single field read. Independent of the categories, every response is
+ * recorded into a preallocated ring of (time, serial, id, error) records
+ * which is printed by dump() for post-mortems.
+ */
+class RilTrace {
+    // Categories, enabled through the persist.ril.trace bit mask at start
+    // and "dumpsys ... --ril-trace <mask>" at runtime
+    static final int SOLICITED = 1 << 0;
+    static final int CALL_LIST = 1 << 1;
+    static final int UUS       = 1 << 2;
+
+    // Serial recorded for unsolicited events
+    static final int NO_SERIAL = -1;
+
+    private static final int RING_SIZE = 256; // must be a power of two
+
+    private final long[] mTime = new long[RING_SIZE];
+    private final int[] mSerial = new int[RING_SIZE];
+    private final int[] mId = new int[RING_SIZE];
+    private final int[] mError = new int[RING_SIZE];
+    private long mCount;
+
+    private volatile int mCategories;
+
+    RilTrace(int categories) {
+        mCategories = categories;
+    }
+
+    boolean
+    isEnabled(int category) {
+        return (mCategories & category) != 0;
+    }
+
+    void
+    setCategories(int categories) {
+        mCategories = categories;
+    }
+
+    synchronized void
+    record(int serial, int id, int error) {
+        int slot = (int) (mCount & (RING_SIZE - 1));
+
+        mTime[slot] = SystemClock.elapsedRealtime();
+        mSerial[slot] = serial;
+        mId[slot] = id;
+        mError[slot] = error;
+        mCount++;
+    }
+
+    synchronized void
+    dump(PrintWriter pw) {
+        long first = Math.max(0, mCount - RING_SIZE);
+
+        pw.println(" RilTrace: categories=0x" + Integer.toHexString(mCategories)
+                + " recorded=" + mCount);
+        for (long i = first; i < mCount; i++) {
+            int slot = (int) (i & (RING_SIZE - 1));
+
+            if (mSerial[slot] == NO_SERIAL) {
+                pw.println("  " + mTime[slot] + " UNSOL " + RIL.responseToString(mId[slot]));
+            } else {
+                pw.println("  " + mTime[slot] + " [" + mSerial[slot] + "] "
+                        + (mId[slot] < 0 ? "<unexpected>" : SamsungRIL.requestToString(mId[slot]))
+                        + " error=" + mError[slot]);
+            }
+        }
+    }
+}
@@ -19,8 +19,10 @@ package com.android.internal.telephony;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.lang.Runtime;
+import java.io.FileDescriptor;
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
 
 import android.content.BroadcastReceiver;
 import android.content.Context;
@@ -28,10 +30,13 @@ import android.content.Intent;
 import android.content.IntentFilter;
 import android.net.ConnectivityManager;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.Message;
 import android.os.AsyncResult;
 import android.os.Parcel;
+import android.os.PowerManager;
 import android.os.Registrant;
+import android.os.SystemClock;
 import android.os.SystemProperties;
 import android.telephony.PhoneNumberUtils;
 import android.telephony.SignalStrength;
@@ -59,12 +64,214 @@ import android.telephony.Rlog;
 
 public class SamsungRIL extends RIL implements CommandsInterface {
 
-    private boolean mSignalbarCount = SystemProperties.getInt("ro.telephony.sends_barcount", 0) == 1 ? true : false;
-    private boolean mIsSamsungCdma = SystemProperties.getBoolean("ro.ril.samsung_cdma", false);
-    private Object mCatProCmdBuffer;
+    // ro.* properties, they cannot change after boot. Static so that signal
+    // strength received before our constructor has run is decoded right.
+    private static final boolean sSignalbarCount =
+            SystemProperties.getInt("ro.telephony.sends_barcount", 0) == 1;
+    private static final boolean sIsSamsungCdma =
+            SystemProperties.getBoolean("ro.ril.samsung_cdma", false);
+    private ResponseDecoderTable mSolicitedDecoders;
+
+    // Static so that it is usable before our constructor has run, see processSolicited.
+    private static final RilTrace sTrace =
+            new RilTrace(SystemProperties.getInt("persist.ril.trace", 0));
+
+    // Raw traffic capture, null unless persist.ril.capture is set
+    private static final RilCapture sCapture =
+            SystemProperties.getBoolean("persist.ril.capture", false)
+            ? new RilCapture("/data/misc/radio/ril_capture.bin",
+                    SystemProperties.getInt("persist.ril.capture_size", 4 * 1024 * 1024))
+            : null;
+
+    // Static for the same reason as sTrace
+    private static final RilLatencyStats sLatency = new RilLatencyStats();
+    private static final SingleFlightCoalescer sCoalescer = new SingleFlightCoalescer();
+    private static final IdentityCache sIdentity = new IdentityCache();
+    private static final SimIoCache sSimIo = new SimIoCache();
+    private static final ScreenOffParker sParker =
+            new ScreenOffParker(SystemProperties.getBoolean("persist.ril.park_screen_off", false));
+    private static final RilProperties sProps = new RilProperties();
+
+    // Always compiled ahead of UnsolicitedFilter.CONFIG_FILE
+    private static final String[] BUILTIN_UNSOL_RULES = {
+        // Prevents the "ring of death" bug
+        RIL_UNSOL_CDMA_INFO_REC + " $0=1 $1=" + SignalToneUtil.IS95_CONST_IR_SIGNAL_IS54B
+                + " $2=" + SignalToneUtil.IS95_CONST_IR_ALERT_MED
+                + " $3=" + SignalToneUtil.IS95_CONST_IR_SIG_IS54B_L + " drop",
+    };
+    private static final UnsolicitedFilter sUnsolFilter =
+            new UnsolicitedFilter(BUILTIN_UNSOL_RULES, UnsolicitedFilter.CONFIG_FILE);
+
+    // Fields of a CDMA signal info record for sUnsolFilter, only touched
+    // from the receiver thread
+    private static final int[] sSignalInfoFields = new int[4];
+
+    // Events that came before their registrant. Static like sTrace, the
+    // unsolicited path can run before our constructor has.
+    private static final EarlyEventBuffer sEarlyEvents = new EarlyEventBuffer();
+
+    // Reused by the signal strength decoder, only touched from the receiver thread
+    private static final int[] sSignalScratch = new int[7];
+    // Null before our constructor has run, see handleUnsolicited
+    private final SignalStrengthFilter mSignalFilter;
+
+    // Held while decoding, by the receiver (or decode) thread and by a
+    // capture replay, see replayCapture. What is "only touched from the
+    // receiver thread" is guarded by it.
+    private static final Object sDecodeLock = new Object();
+
+    // Set while a replayed response is decoded: the decoders then leave
+    // registrants, properties and the live call and data state alone
+    private boolean mReplaying;
+
+    // GET_CURRENT_CALLS state, only touched from the receiver thread
+    private static final int VOICE_PRIVACY_UNKNOWN = -1;
+    private final CallListSnapshot mCallSnapshot = new CallListSnapshot();
+    private final CallListSnapshot mReplaySnapshot = new CallListSnapshot();
+    private final CallListSnapshot.Call mCallScratch = new CallListSnapshot.Call();
+    private int mVoicePrivacy = VOICE_PRIVACY_UNKNOWN;
+
+    // Only touched from the receiver thread
+    private static final NitzParser sNitzParser = new NitzParser();
+    private static final StringPool sStringPool = new StringPool();
+
+    private final EmergencyNumberMatcher mEmergencyNumbers = new EmergencyNumberMatcher();
+
+    // Runs deferred work (delayed deliveries, timers) off the receiver thread
+    private final HandlerThread mWorkerThread;
+    private final Handler mWorker;
+
+    private final PppdCdmaController mPppd;
+    // Null before our constructor has run, like mSignalFilter
+    private final HsdpaStateTracker mHsdpaTracker;
+    private final AmCommandDispatcher mAmDispatcher;
+
+    // Becomes the base class mRequestList. Null before our constructor has run.
+    private final PendingRequestList mPendingRequests;
+
+    // Null before our constructor has run and when persist.ril.sched is false
+    private final RequestScheduler mScheduler;
+
+    // GSM SMS segments, see sendSMS
+    private final SmsSendWindow mSmsWindow;
+
+    // Null unless persist.ril.pipeline is set, see processSolicited. When set,
+    // what is "only touched from the receiver thread" belongs to its decode thread.
+    private final RilReceivePipeline mPipeline;
 
     public SamsungRIL(Context context, int networkMode, int cdmaSubscription) {
         super(context, networkMode, cdmaSubscription);
+
+        // The base class keeps using mRequestList, now with constant time lookups
+        mPendingRequests = new PendingRequestList();
+        synchronized (mRequestList) {
+            for (int i = 0; i < mRequestList.size(); i++) {
+                mPendingRequests.append(mRequestList.keyAt(i), mRequestList.valueAt(i));
+            }
+            mRequestList = mPendingRequests;
+        }
+
+        mWorkerThread = new HandlerThread("SamsungRIL");
+        mWorkerThread.start();
+        mWorker = new Handler(mWorkerThread.getLooper());
+
+        PppdCdmaController.Callback pppdCallback = new PppdCdmaController.Callback() {
+            @Override
+            public void deactivateDataCall(int cid) {
+                sendDeactivateDataCall(cid);
+            }
+        };
+        mPppd = new PppdCdmaController(mWorker,
+                SystemProperties.getInt("persist.ril.cdma.standby_ms", 0), pppdCallback);
+        mAmDispatcher = new AmCommandDispatcher(context, mWorker);
+
+        HsdpaStateTracker.Callback hsdpaCallback = new HsdpaStateTracker.Callback() {
+            @Override
+            public void onNetworkStatePollNeeded() {
+                sCoalescer.invalidate();
+                mVoiceNetworkStateRegistrants
+                    .notifyRegistrants(new AsyncResult(null, null, null));
+            }
+        };
+        mHsdpaTracker = new HsdpaStateTracker(mWorker, hsdpaCallback,
+                SystemProperties.getLong("persist.ril.hsdpa.debounce_ms", 1000));
+
+        SignalStrengthFilter.Callback signalCallback = new SignalStrengthFilter.Callback() {
+            @Override
+            public void onSignalStrength(SignalStrength signalStrength) {
+                synchronized (sEarlyEvents) {
+                    if (mSignalStrengthRegistrant != null) {
+                        mSignalStrengthRegistrant.notifyResult(signalStrength);
+                    } else {
+                        sEarlyEvents.save(EarlyEventBuffer.SIGNAL_STRENGTH, signalStrength);
+                    }
+                }
+            }
+        };
+        mSignalFilter = new SignalStrengthFilter(mWorker, signalCallback, !sIsSamsungCdma,
+                SystemProperties.getInt("persist.ril.signal.policy",
+                        SignalStrengthFilter.DROP_DUPLICATES),
+                SystemProperties.getLong("persist.ril.signal.interval_ms", 0));
+
+        if (SystemProperties.getBoolean("persist.ril.sched", false)) {
+            RequestScheduler.Sender sender = new RequestScheduler.Sender() {
+                @Override
+                public boolean sendNow(RILRequest rr) {
+                    // The base class fails the request right away without a socket
+                    boolean connected = mSocket != null;
+
+                    sendToRild(rr);
+                    return connected;
+                }
+            };
+            mScheduler = new RequestScheduler(sender, mWorker,
+                    SystemProperties.getInt("persist.ril.sched.shared", 4),
+                    SystemProperties.getInt("persist.ril.sched.bulk", 2));
+        } else {
+            mScheduler = null;
+        }
+
+        SmsSendWindow.Sender smsSender = new SmsSendWindow.Sender() {
+            @Override
+            public boolean send(RILRequest rr) {
+                boolean connected = mSocket != null;
+
+                if (RILJ_LOGD) riljLog(rr.serialString() + "> " + requestToString(rr.mRequest));
+                SamsungRIL.this.send(rr);
+                return connected;
+            }
+        };
+        mSmsWindow = new SmsSendWindow(smsSender, mWorker,
+                SystemProperties.getInt("persist.ril.sms.window", 2));
+
+        if (SystemProperties.getBoolean("persist.ril.pipeline", false)) {
+            PowerManager pm = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+            PowerManager.WakeLock wakeLock =
+                    pm.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, "SamsungRIL-decode");
+
+            RilReceivePipeline.Stage stage = new RilReceivePipeline.Stage() {
+                @Override
+                public void process(int type, Parcel p, RILRequest rr) {
+                    if (type == RilReceivePipeline.UNSOLICITED) {
+                        synchronized (sDecodeLock) {
+                            handleUnsolicited(p);
+                        }
+                    } else {
+                        synchronized (sDecodeLock) {
+                            rr = handleSolicited(p, rr);
+                        }
+                        if (rr != null) {
+                            // What the base class does for a request processSolicited returns
+                            rr.release();
+                            decrementWakeLock();
+                        }
+                    }
+                }
+            };
+            mPipeline = new RilReceivePipeline(stage, wakeLock);
+        } else {
+            mPipeline = null;
+        }
     }
 
     // SAMSUNG SGS STATES
@@ -103,20 +310,138 @@ public class SamsungRIL extends RIL implements CommandsInterface {
         send(rr);
     }
 
+    @Override
+    protected void
+    send(RILRequest rr) {
+        if (mSocket != null && SingleFlightCoalescer.isCoalescible(rr.mRequest)
+                && sCoalescer.join(rr.mRequest, rr.mSerial, rr.mResult)) {
+            if (RILJ_LOGD) riljLog(rr.serialString() + "> " + requestToString(rr.mRequest)
+                    + " joined the request in flight");
+            // Never written out, so the sender did not recycle the parcel
+            rr.mParcel.recycle();
+            rr.mParcel = null;
+            rr.release();
+            return;
+        }
+
+        sLatency.onSend(rr.mSerial, rr.mRequest);
+
+        switch (rr.mRequest) {
+            case RIL_REQUEST_WRITE_SMS_TO_SIM:
+            case RIL_REQUEST_DELETE_SMS_ON_SIM:
+            case RIL_REQUEST_CDMA_WRITE_SMS_TO_RUIM:
+            case RIL_REQUEST_CDMA_DELETE_SMS_ON_RUIM:
+                sSimIo.invalidateFile(SimIoCache.EF_SMS);
+                break;
+        }
+
+        if (mScheduler != null && mSocket != null && !SmsSendWindow.isSegment(rr.mRequest)) {
+            mScheduler.submit(rr);
+        } else {
+            sendToRild(rr);
+        }
+    }
+
+    private void
+    sendToRild(RILRequest rr) {
+        if (sCapture != null) sCapture.capture(RilCaptureFormat.REQUEST, rr.mParcel);
+
+        super.send(rr);
+    }
+
+    // Takes a request rild answered off the pending list
+    private RILRequest
+    removeRequest(int serial) {
+        RILRequest rr;
+
+        if (mPendingRequests != null) {
+            synchronized (mPendingRequests) {
+                rr = mPendingRequests.take(serial);
+            }
+        } else {
+            rr = super.findAndRemoveRequestFromList(serial);
+        }
+
+        if (rr != null && mScheduler != null) {
+            mScheduler.onComplete(serial);
+        }
+        return rr;
+    }
+
+    // The base class only calls this when its sender fails to write rr, which
+    // it then answers with an error itself. Fail whoever waits along with it.
+    @Override
+    protected RILRequest
+    findAndRemoveRequestFromList(int serial) {
+        RILRequest rr = removeRequest(serial);
+
+        if (rr == null) {
+            return null;
+        }
+        sLatency.onSendFailed(serial);
+        if (SingleFlightCoalescer.isCoalescible(rr.mRequest)) {
+            SingleFlightCoalescer.notifyWaiters(sCoalescer.complete(rr.mRequest, serial), null,
+                    new CommandException(CommandException.Error.RADIO_NOT_AVAILABLE));
+        }
+        onRequestFailed(rr);
+        return rr;
+    }
+
+    // Tells whoever tracks rr by serial that it failed without a usable response
+    private void
+    onRequestFailed(RILRequest rr) {
+        if (IdentityCache.isCached(rr.mRequest)) {
+            sIdentity.onResponse(rr.mSerial, rr.mRequest, null);
+        } else if (rr.mRequest == RIL_REQUEST_SIM_IO) {
+            sSimIo.onResponse(rr.mSerial, null);
+        } else if (SmsSendWindow.isSegment(rr.mRequest) && mSmsWindow != null) {
+            mSmsWindow.onResponse(rr.mSerial, GENERIC_FAILURE, null);
+        } else if (rr.mRequest == RIL_REQUEST_SETUP_DATA_CALL && mPppd != null) {
+            mPppd.onSetupAnswered(rr.mSerial);
+        }
+    }
+
     @Override
     protected RILRequest
     processSolicited (Parcel p) {
+        if (sCapture != null) sCapture.capture(RilCaptureFormat.SOLICITED, p);
+
+        if (mPipeline == null) {
+            synchronized (sDecodeLock) {
+                return handleSolicited(p, null);
+            }
+        }
+
+        // Pipelined: take the request off the pending list here, in receive
+        // order, and return null so that the base class leaves it alone. The
+        // decode thread releases it and drops its wakelock once handled.
+        int dataPosition = p.dataPosition();
+        RILRequest rr = removeRequest(p.readInt());
+        p.setDataPosition(dataPosition);
+
+        mPipeline.post(RilReceivePipeline.SOLICITED, p, rr);
+        return null;
+    }
+
+    // Decodes and dispatches a solicited response. rr is the request already
+    // taken off the pending list, or null to look it up by serial.
+    private RILRequest
+    handleSolicited(Parcel p, RILRequest rr) {
         int serial, error;
 
         serial = p.readInt();
         error = p.readInt();
 
-        Rlog.d(RILJ_LOG_TAG, "Serial: " + serial);
-        Rlog.d(RILJ_LOG_TAG, "Error: " + error);
+        if (sTrace.isEnabled(RilTrace.SOLICITED)) {
+            Rlog.d(RILJ_LOG_TAG, "Serial: " + serial + " Error: " + error);
+        }
 
-        RILRequest rr;
+        if (rr == null) {
+            rr = removeRequest(serial);
+        }
 
-        rr = findAndRemoveRequestFromList(serial);
+        sTrace.record(serial, rr != null ? rr.mRequest : -1, error);
+        sLatency.onResponse(serial, rr != null ? rr.mRequest : -1, error);
 
         if (rr == null) {
             Rlog.w(RILJ_LOG_TAG, "Unexpected solicited response! sn: "
@@ -124,141 +449,47 @@ public class SamsungRIL extends RIL implements CommandsInterface {
             return null;
         }
 
+        ArrayList<Message> waiters = null;
+        if (SingleFlightCoalescer.isCoalescible(rr.mRequest)) {
+            waiters = sCoalescer.complete(rr.mRequest, rr.mSerial);
+        }
+
         Object ret = null;
 
+        if (mSolicitedDecoders == null) {
+            // Built on first use: the receiver thread is started from the RIL
+            // constructor, before our own fields have been initialized.
+            mSolicitedDecoders = createSolicitedDecoders();
+        }
+
         if (error == 0 || p.dataAvail() > 0) {
             // either command succeeds or command fails but with data payload
-            try {switch (rr.mRequest) {
-            /*
-            cat libs/telephony/ril_commands.h \
-            | egrep "^ *{RIL_" \
-            | sed -re 's/\{([^,]+),[^,]+,([^}]+).+/case \1: ret = \2(p); break;/'
-             */
-            case RIL_REQUEST_GET_SIM_STATUS: ret =  responseIccCardStatus(p); break;
-            case RIL_REQUEST_ENTER_SIM_PIN: ret =  responseInts(p); break;
-            case RIL_REQUEST_ENTER_SIM_PUK: ret =  responseInts(p); break;
-            case RIL_REQUEST_ENTER_SIM_PIN2: ret =  responseInts(p); break;
-            case RIL_REQUEST_ENTER_SIM_PUK2: ret =  responseInts(p); break;
-            case RIL_REQUEST_CHANGE_SIM_PIN: ret =  responseInts(p); break;
-            case RIL_REQUEST_CHANGE_SIM_PIN2: ret =  responseInts(p); break;
-            case RIL_REQUEST_ENTER_NETWORK_DEPERSONALIZATION: ret =  responseInts(p); break;
-            case RIL_REQUEST_GET_CURRENT_CALLS: ret =  responseCallList(p); break;
-            case RIL_REQUEST_DIAL: ret =  responseVoid(p); break;
-            case RIL_REQUEST_GET_IMSI: ret =  responseString(p); break;
-            case RIL_REQUEST_HANGUP: ret =  responseVoid(p); break;
-            case RIL_REQUEST_HANGUP_WAITING_OR_BACKGROUND: ret =  responseVoid(p); break;
-            case RIL_REQUEST_HANGUP_FOREGROUND_RESUME_BACKGROUND: ret =  responseVoid(p); break;
-            case RIL_REQUEST_SWITCH_WAITING_OR_HOLDING_AND_ACTIVE: ret =  responseVoid(p); break;
-            case RIL_REQUEST_CONFERENCE: ret =  responseVoid(p); break;
-            case RIL_REQUEST_UDUB: ret =  responseVoid(p); break;
-            case RIL_REQUEST_LAST_CALL_FAIL_CAUSE: ret =  responseLastCallFailCause(p); break;
-            case RIL_REQUEST_SIGNAL_STRENGTH: ret =  responseSignalStrength(p); break;
-            case RIL_REQUEST_VOICE_REGISTRATION_STATE: ret =  responseVoiceRegistrationState(p); break;
-            case RIL_REQUEST_DATA_REGISTRATION_STATE: ret =  responseStrings(p); break;
-            case RIL_REQUEST_OPERATOR: ret =  responseStrings(p); break;
-            case RIL_REQUEST_RADIO_POWER: ret =  responseVoid(p); break;
-            case RIL_REQUEST_DTMF: ret =  responseVoid(p); break;
-            case RIL_REQUEST_SEND_SMS: ret =  responseSMS(p); break;
-            case RIL_REQUEST_SEND_SMS_EXPECT_MORE: ret =  responseSMS(p); break;
-            case RIL_REQUEST_SETUP_DATA_CALL: ret =  responseSetupDataCall(p); break;
-            case RIL_REQUEST_SIM_IO: ret =  responseICC_IO(p); break;
-            case RIL_REQUEST_SEND_USSD: ret =  responseVoid(p); break;
-            case RIL_REQUEST_CANCEL_USSD: ret =  responseVoid(p); break;
-            case RIL_REQUEST_GET_CLIR: ret =  responseInts(p); break;
-            case RIL_REQUEST_SET_CLIR: ret =  responseVoid(p); break;
-            case RIL_REQUEST_QUERY_CALL_FORWARD_STATUS: ret =  responseCallForward(p); break;
-            case RIL_REQUEST_SET_CALL_FORWARD: ret =  responseVoid(p); break;
-            case RIL_REQUEST_QUERY_CALL_WAITING: ret =  responseInts(p); break;
-            case RIL_REQUEST_SET_CALL_WAITING: ret =  responseVoid(p); break;
-            case RIL_REQUEST_SMS_ACKNOWLEDGE: ret =  responseVoid(p); break;
-            case RIL_REQUEST_GET_IMEI: ret =  responseString(p); break;
-            case RIL_REQUEST_GET_IMEISV: ret =  responseString(p); break;
-            case RIL_REQUEST_ANSWER: ret =  responseVoid(p); break;
-            case RIL_REQUEST_DEACTIVATE_DATA_CALL: ret =  responseVoid(p); break;
-            case RIL_REQUEST_QUERY_FACILITY_LOCK: ret =  responseInts(p); break;
-            case RIL_REQUEST_SET_FACILITY_LOCK: ret =  responseInts(p); break;
-            case RIL_REQUEST_CHANGE_BARRING_PASSWORD: ret =  responseVoid(p); break;
-            case RIL_REQUEST_QUERY_NETWORK_SELECTION_MODE: ret =  responseInts(p); break;
-            case RIL_REQUEST_SET_NETWORK_SELECTION_AUTOMATIC: ret =  responseVoid(p); break;
-            case RIL_REQUEST_SET_NETWORK_SELECTION_MANUAL: ret =  responseVoid(p); break;
-            case RIL_REQUEST_QUERY_AVAILABLE_NETWORKS : ret =  responseOperatorInfos(p); break;
-            case RIL_REQUEST_DTMF_START: ret =  responseVoid(p); break;
-            case RIL_REQUEST_DTMF_STOP: ret =  responseVoid(p); break;
-            case RIL_REQUEST_BASEBAND_VERSION: ret =  responseString(p); break;
-            case RIL_REQUEST_SEPARATE_CONNECTION: ret =  responseVoid(p); break;
-            case RIL_REQUEST_SET_MUTE: ret =  responseVoid(p); break;
-            case RIL_REQUEST_GET_MUTE: ret =  responseInts(p); break;
-            case RIL_REQUEST_QUERY_CLIP: ret =  responseInts(p); break;
-            case RIL_REQUEST_LAST_DATA_CALL_FAIL_CAUSE: ret =  responseInts(p); break;
-            case RIL_REQUEST_DATA_CALL_LIST: ret =  responseDataCallList(p); break;
-            case RIL_REQUEST_RESET_RADIO: ret =  responseVoid(p); break;
-            case RIL_REQUEST_OEM_HOOK_RAW: ret =  responseRaw(p); break;
-            case RIL_REQUEST_OEM_HOOK_STRINGS: ret =  responseStrings(p); break;
-            case RIL_REQUEST_SCREEN_STATE: ret =  responseVoid(p); break;
-            case RIL_REQUEST_SET_SUPP_SVC_NOTIFICATION: ret =  responseVoid(p); break;
-            case RIL_REQUEST_WRITE_SMS_TO_SIM: ret =  responseInts(p); break;
-            case RIL_REQUEST_DELETE_SMS_ON_SIM: ret =  responseVoid(p); break;
-            case RIL_REQUEST_SET_BAND_MODE: ret =  responseVoid(p); break;
-            case RIL_REQUEST_QUERY_AVAILABLE_BAND_MODE: ret =  responseInts(p); break;
-            case RIL_REQUEST_STK_GET_PROFILE: ret =  responseString(p); break;
-            case RIL_REQUEST_STK_SET_PROFILE: ret =  responseVoid(p); break;
-            case RIL_REQUEST_STK_SEND_ENVELOPE_COMMAND: ret =  responseString(p); break;
-            case RIL_REQUEST_STK_SEND_TERMINAL_RESPONSE: ret =  responseVoid(p); break;
-            case RIL_REQUEST_STK_HANDLE_CALL_SETUP_REQUESTED_FROM_SIM: ret =  responseInts(p); break;
-            case RIL_REQUEST_EXPLICIT_CALL_TRANSFER: ret =  responseVoid(p); break;
-            case RIL_REQUEST_SET_PREFERRED_NETWORK_TYPE: ret =  responseVoid(p); break;
-            case RIL_REQUEST_GET_PREFERRED_NETWORK_TYPE: ret =  responseNetworkType(p); break;
-            case RIL_REQUEST_GET_NEIGHBORING_CELL_IDS: ret = responseCellList(p); break;
-            case RIL_REQUEST_SET_LOCATION_UPDATES: ret =  responseVoid(p); break;
-            case RIL_REQUEST_CDMA_SET_SUBSCRIPTION_SOURCE: ret =  responseVoid(p); break;
-            case RIL_REQUEST_CDMA_SET_ROAMING_PREFERENCE: ret =  responseVoid(p); break;
-            case RIL_REQUEST_CDMA_QUERY_ROAMING_PREFERENCE: ret =  responseInts(p); break;
-            case RIL_REQUEST_SET_TTY_MODE: ret =  responseVoid(p); break;
-            case RIL_REQUEST_QUERY_TTY_MODE: ret =  responseInts(p); break;
-            case RIL_REQUEST_CDMA_SET_PREFERRED_VOICE_PRIVACY_MODE: ret =  responseVoid(p); break;
-            case RIL_REQUEST_CDMA_QUERY_PREFERRED_VOICE_PRIVACY_MODE: ret =  responseInts(p); break;
-            case RIL_REQUEST_CDMA_FLASH: ret =  responseVoid(p); break;
-            case RIL_REQUEST_CDMA_BURST_DTMF: ret =  responseVoid(p); break;
-            case RIL_REQUEST_CDMA_SEND_SMS: ret =  responseSMS(p); break;
-            case RIL_REQUEST_CDMA_SMS_ACKNOWLEDGE: ret =  responseVoid(p); break;
-            case RIL_REQUEST_GSM_GET_BROADCAST_CONFIG: ret =  responseGmsBroadcastConfig(p); break;
-            case RIL_REQUEST_GSM_SET_BROADCAST_CONFIG: ret =  responseVoid(p); break;
-            case RIL_REQUEST_GSM_BROADCAST_ACTIVATION: ret =  responseVoid(p); break;
-            case RIL_REQUEST_CDMA_GET_BROADCAST_CONFIG: ret =  responseCdmaBroadcastConfig(p); break;
-            case RIL_REQUEST_CDMA_SET_BROADCAST_CONFIG: ret =  responseVoid(p); break;
-            case RIL_REQUEST_CDMA_BROADCAST_ACTIVATION: ret =  responseVoid(p); break;
-            case RIL_REQUEST_CDMA_VALIDATE_AND_WRITE_AKEY: ret =  responseVoid(p); break;
-            case RIL_REQUEST_CDMA_SUBSCRIPTION: ret =  responseCdmaSubscription(p); break;
-            case RIL_REQUEST_CDMA_WRITE_SMS_TO_RUIM: ret =  responseInts(p); break;
-            case RIL_REQUEST_CDMA_DELETE_SMS_ON_RUIM: ret =  responseVoid(p); break;
-            case RIL_REQUEST_DEVICE_IDENTITY: ret =  responseStrings(p); break;
-            case RIL_REQUEST_GET_SMSC_ADDRESS: ret = responseString(p); break;
-            case RIL_REQUEST_SET_SMSC_ADDRESS: ret = responseVoid(p); break;
-            case RIL_REQUEST_EXIT_EMERGENCY_CALLBACK_MODE: ret = responseVoid(p); break;
-            case RIL_REQUEST_REPORT_SMS_MEMORY_STATUS: ret = responseVoid(p); break;
-            case RIL_REQUEST_REPORT_STK_SERVICE_IS_RUNNING: ret = responseVoid(p); break;
-            case RIL_REQUEST_DIAL_EMERGENCY: ret = responseVoid(p); break;
-            default:
-                throw new RuntimeException("Unrecognized solicited response: " + rr.mRequest);
-                //break;
-            }} catch (Throwable tr) {
+            try {
+                ResponseDecoderTable.Decoder decoder = mSolicitedDecoders.get(rr.mRequest);
+                if (decoder == null) {
+                    throw new RuntimeException("Unrecognized solicited response: " + rr.mRequest);
+                }
+                ret = decoder.decode(p);
+            } catch (Throwable tr) {
                 // Exceptions here usually mean invalid RIL responses
 
                 Rlog.w(RILJ_LOG_TAG, rr.serialString() + "< "
                         + requestToString(rr.mRequest)
                         + " exception, possible invalid RIL response", tr);
 
+                onRequestFailed(rr);
                 if (rr.mResult != null) {
                     AsyncResult.forMessage(rr.mResult, null, tr);
                     rr.mResult.sendToTarget();
                 }
+                SingleFlightCoalescer.notifyWaiters(waiters, null, tr);
                 return rr;
             }
         }
 
         if (error != 0) {
             // Ugly fix for Samsung messing up SMS_SEND request fail in binary RIL
-            if (error == -1 && rr.mRequest == RIL_REQUEST_SEND_SMS)
+            if (error == -1 && SmsSendWindow.isSegment(rr.mRequest))
             {
                 try
                 {
@@ -267,31 +498,272 @@ public class SamsungRIL extends RIL implements CommandsInterface {
                     Rlog.w(RILJ_LOG_TAG, rr.serialString() + "< "
                             + requestToString(rr.mRequest)
                             + " exception, Processing Samsung SMS fix ", tr);
+                    if (mSmsWindow.onResponse(rr.mSerial, error, ret)) {
+                        if (RILJ_LOGD) riljLog(rr.serialString() + "< "
+                                + requestToString(rr.mRequest) + " retrying segment");
+                        return rr;
+                    }
                     rr.onError(error, ret);
                     return rr;
                 }
+            } else if (SmsSendWindow.isSegment(rr.mRequest)
+                    && mSmsWindow.onResponse(rr.mSerial, error, ret)) {
+                if (RILJ_LOGD) riljLog(rr.serialString() + "< "
+                        + requestToString(rr.mRequest) + " error " + error + ", retrying segment");
+                return rr;
             } else {
+                onRequestFailed(rr);
                 rr.onError(error, ret);
+                SingleFlightCoalescer.notifyWaiters(waiters, ret,
+                        CommandException.fromRilErrno(error));
                 return rr;
             }
         }
 
+        if (ret instanceof PppdCdmaController.PendingSetup) {
+            // The result is sent once pppd_cdma is up, see responseSetupDataCall
+            if (RILJ_LOGD) riljLog(rr.serialString() + "< " + requestToString(rr.mRequest)
+                    + " waiting for pppd_cdma");
+            mPppd.start((PppdCdmaController.PendingSetup) ret, rr.mSerial, rr.mResult);
+            return rr;
+        }
+        if (rr.mRequest == RIL_REQUEST_SETUP_DATA_CALL && mPppd != null) {
+            mPppd.onSetupAnswered(rr.mSerial);
+        }
+
         if (RILJ_LOGD) riljLog(rr.serialString() + "< " + requestToString(rr.mRequest)
                 + " " + retToString(rr.mRequest, ret));
 
+        if (IdentityCache.isCached(rr.mRequest)) {
+            sIdentity.onResponse(rr.mSerial, rr.mRequest, ret);
+        } else if (SmsSendWindow.isSegment(rr.mRequest)) {
+            mSmsWindow.onResponse(rr.mSerial, 0, ret);
+        } else if (rr.mRequest == RIL_REQUEST_SIM_IO) {
+            sSimIo.onResponse(rr.mSerial, ret);
+        } else if (rr.mRequest == RIL_REQUEST_GET_SIM_STATUS && ret instanceof IccCardStatus) {
+            IccCardStatus.CardState state = ((IccCardStatus) ret).mCardState;
+            sSimIo.onCardState(state == IccCardStatus.CardState.CARDSTATE_PRESENT);
+        }
+
         if (rr.mResult != null) {
             AsyncResult.forMessage(rr.mResult, ret, null);
             rr.mResult.sendToTarget();
         }
+        SingleFlightCoalescer.notifyWaiters(waiters, ret, null);
 
         return rr;
     }
 
+    @Override
+    protected void
+    setRadioState(RadioState newState) {
+        super.setRadioState(newState);
+
+        if (!newState.isOn() && mSignalFilter != null) {
+            // The framework shows no signal now, don't hold back the first value after
+            mSignalFilter.reset();
+        }
+        if (!newState.isAvailable()) {
+            // The base class fails the requests themselves, fail whoever joined them
+            sCoalescer.failAll(new CommandException(CommandException.Error.RADIO_NOT_AVAILABLE));
+            sIdentity.invalidateAll();
+            sSimIo.invalidateAll();
+            if (mScheduler != null) mScheduler.onRadioUnavailable();
+            if (mSmsWindow != null) mSmsWindow.onRadioUnavailable();
+            if (mPppd != null) mPppd.onRadioUnavailable();
+        }
+        sProps.invalidate(RilProperties.SIM_STATE);
+    }
+
+    // Builds the request id -> response decoder table used by processSolicited.
+    // A device that needs a different decoder for some request overrides this,
+    // calls super and replaces the affected entries.
+    protected ResponseDecoderTable
+    createSolicitedDecoders() {
+        ResponseDecoderTable.Decoder iccCardStatus = new ResponseDecoderTable.Decoder() {
+            public Object decode(Parcel p) { return responseIccCardStatus(p); }
+        };
+        ResponseDecoderTable.Decoder ints = new ResponseDecoderTable.Decoder() {
+            public Object decode(Parcel p) { return responseInts(p); }
+        };
+        ResponseDecoderTable.Decoder callList = new ResponseDecoderTable.Decoder() {
+            public Object decode(Parcel p) { return responseCallList(p); }
+        };
+        ResponseDecoderTable.Decoder none = new ResponseDecoderTable.Decoder() {
+            public Object decode(Parcel p) { return responseVoid(p); }
+        };
+        ResponseDecoderTable.Decoder string = new ResponseDecoderTable.Decoder() {
+            public Object decode(Parcel p) { return responseString(p); }
+        };
+        ResponseDecoderTable.Decoder lastCallFailCause = new ResponseDecoderTable.Decoder() {
+            public Object decode(Parcel p) { return responseLastCallFailCause(p); }
+        };
+        ResponseDecoderTable.Decoder signalStrength = new ResponseDecoderTable.Decoder() {
+            public Object decode(Parcel p) { return responseSignalStrength(p); }
+        };
+        ResponseDecoderTable.Decoder voiceRegistrationState = new ResponseDecoderTable.Decoder() {
+            public Object decode(Parcel p) { return responseVoiceRegistrationState(p); }
+        };
+        ResponseDecoderTable.Decoder strings = new ResponseDecoderTable.Decoder() {
+            public Object decode(Parcel p) { return responseStrings(p); }
+        };
+        ResponseDecoderTable.Decoder operator = new ResponseDecoderTable.Decoder() {
+            public Object decode(Parcel p) { return responseOperator(p); }
+        };
+        ResponseDecoderTable.Decoder dataRegistrationState = new ResponseDecoderTable.Decoder() {
+            public Object decode(Parcel p) { return responseDataRegistrationState(p); }
+        };
+        ResponseDecoderTable.Decoder sms = new ResponseDecoderTable.Decoder() {
+            public Object decode(Parcel p) { return responseSMS(p); }
+        };
+        ResponseDecoderTable.Decoder setupDataCall = new ResponseDecoderTable.Decoder() {
+            public Object decode(Parcel p) { return responseSetupDataCall(p); }
+        };
+        ResponseDecoderTable.Decoder iccIo = new ResponseDecoderTable.Decoder() {
+            public Object decode(Parcel p) { return responseICC_IO(p); }
+        };
+        ResponseDecoderTable.Decoder callForward = new ResponseDecoderTable.Decoder() {
+            public Object decode(Parcel p) { return responseCallForward(p); }
+        };
+        ResponseDecoderTable.Decoder operatorInfos = new ResponseDecoderTable.Decoder() {
+            public Object decode(Parcel p) { return responseOperatorInfos(p); }
+        };
+        ResponseDecoderTable.Decoder dataCallList = new ResponseDecoderTable.Decoder() {
+            public Object decode(Parcel p) { return responseDataCallList(p); }
+        };
+        ResponseDecoderTable.Decoder raw = new ResponseDecoderTable.Decoder() {
+            public Object decode(Parcel p) { return responseRaw(p); }
+        };
+        ResponseDecoderTable.Decoder networkType = new ResponseDecoderTable.Decoder() {
+            public Object decode(Parcel p) { return responseNetworkType(p); }
+        };
+        ResponseDecoderTable.Decoder cellList = new ResponseDecoderTable.Decoder() {
+            public Object decode(Parcel p) { return responseCellList(p); }
+        };
+        ResponseDecoderTable.Decoder gmsBroadcastConfig = new ResponseDecoderTable.Decoder() {
+            public Object decode(Parcel p) { return responseGmsBroadcastConfig(p); }
+        };
+        ResponseDecoderTable.Decoder cdmaBroadcastConfig = new ResponseDecoderTable.Decoder() {
+            public Object decode(Parcel p) { return responseCdmaBroadcastConfig(p); }
+        };
+        ResponseDecoderTable.Decoder cdmaSubscription = new ResponseDecoderTable.Decoder() {
+            public Object decode(Parcel p) { return responseCdmaSubscription(p); }
+        };
+
+        ResponseDecoderTable t = new ResponseDecoderTable();
+        t.put(RIL_REQUEST_GET_SIM_STATUS, iccCardStatus);
+        t.put(RIL_REQUEST_ENTER_SIM_PIN, ints);
+        t.put(RIL_REQUEST_ENTER_SIM_PUK, ints);
+        t.put(RIL_REQUEST_ENTER_SIM_PIN2, ints);
+        t.put(RIL_REQUEST_ENTER_SIM_PUK2, ints);
+        t.put(RIL_REQUEST_CHANGE_SIM_PIN, ints);
+        t.put(RIL_REQUEST_CHANGE_SIM_PIN2, ints);
+        t.put(RIL_REQUEST_ENTER_NETWORK_DEPERSONALIZATION, ints);
+        t.put(RIL_REQUEST_GET_CURRENT_CALLS, callList);
+        t.put(RIL_REQUEST_DIAL, none);
+        t.put(RIL_REQUEST_GET_IMSI, string);
+        t.put(RIL_REQUEST_HANGUP, none);
+        t.put(RIL_REQUEST_HANGUP_WAITING_OR_BACKGROUND, none);
+        t.put(RIL_REQUEST_HANGUP_FOREGROUND_RESUME_BACKGROUND, none);
+        t.put(RIL_REQUEST_SWITCH_WAITING_OR_HOLDING_AND_ACTIVE, none);
+        t.put(RIL_REQUEST_CONFERENCE, none);
+        t.put(RIL_REQUEST_UDUB, none);
+        t.put(RIL_REQUEST_LAST_CALL_FAIL_CAUSE, lastCallFailCause);
+        t.put(RIL_REQUEST_SIGNAL_STRENGTH, signalStrength);
+        t.put(RIL_REQUEST_VOICE_REGISTRATION_STATE, voiceRegistrationState);
+        t.put(RIL_REQUEST_DATA_REGISTRATION_STATE, dataRegistrationState);
+        t.put(RIL_REQUEST_OPERATOR, operator);
+        t.put(RIL_REQUEST_RADIO_POWER, none);
+        t.put(RIL_REQUEST_DTMF, none);
+        t.put(RIL_REQUEST_SEND_SMS, sms);
+        t.put(RIL_REQUEST_SEND_SMS_EXPECT_MORE, sms);
+        t.put(RIL_REQUEST_SETUP_DATA_CALL, setupDataCall);
+        t.put(RIL_REQUEST_SIM_IO, iccIo);
+        t.put(RIL_REQUEST_SEND_USSD, none);
+        t.put(RIL_REQUEST_CANCEL_USSD, none);
+        t.put(RIL_REQUEST_GET_CLIR, ints);
+        t.put(RIL_REQUEST_SET_CLIR, none);
+        t.put(RIL_REQUEST_QUERY_CALL_FORWARD_STATUS, callForward);
+        t.put(RIL_REQUEST_SET_CALL_FORWARD, none);
+        t.put(RIL_REQUEST_QUERY_CALL_WAITING, ints);
+        t.put(RIL_REQUEST_SET_CALL_WAITING, none);
+        t.put(RIL_REQUEST_SMS_ACKNOWLEDGE, none);
+        t.put(RIL_REQUEST_GET_IMEI, string);
+        t.put(RIL_REQUEST_GET_IMEISV, string);
+        t.put(RIL_REQUEST_ANSWER, none);
+        t.put(RIL_REQUEST_DEACTIVATE_DATA_CALL, none);
+        t.put(RIL_REQUEST_QUERY_FACILITY_LOCK, ints);
+        t.put(RIL_REQUEST_SET_FACILITY_LOCK, ints);
+        t.put(RIL_REQUEST_CHANGE_BARRING_PASSWORD, none);
+        t.put(RIL_REQUEST_QUERY_NETWORK_SELECTION_MODE, ints);
+        t.put(RIL_REQUEST_SET_NETWORK_SELECTION_AUTOMATIC, none);
+        t.put(RIL_REQUEST_SET_NETWORK_SELECTION_MANUAL, none);
+        t.put(RIL_REQUEST_QUERY_AVAILABLE_NETWORKS, operatorInfos);
+        t.put(RIL_REQUEST_DTMF_START, none);
+        t.put(RIL_REQUEST_DTMF_STOP, none);
+        t.put(RIL_REQUEST_BASEBAND_VERSION, string);
+        t.put(RIL_REQUEST_SEPARATE_CONNECTION, none);
+        t.put(RIL_REQUEST_SET_MUTE, none);
+        t.put(RIL_REQUEST_GET_MUTE, ints);
+        t.put(RIL_REQUEST_QUERY_CLIP, ints);
+        t.put(RIL_REQUEST_LAST_DATA_CALL_FAIL_CAUSE, ints);
+        t.put(RIL_REQUEST_DATA_CALL_LIST, dataCallList);
+        t.put(RIL_REQUEST_RESET_RADIO, none);
+        t.put(RIL_REQUEST_OEM_HOOK_RAW, raw);
+        t.put(RIL_REQUEST_OEM_HOOK_STRINGS, strings);
+        t.put(RIL_REQUEST_SCREEN_STATE, none);
+        t.put(RIL_REQUEST_SET_SUPP_SVC_NOTIFICATION, none);
+        t.put(RIL_REQUEST_WRITE_SMS_TO_SIM, ints);
+        t.put(RIL_REQUEST_DELETE_SMS_ON_SIM, none);
+        t.put(RIL_REQUEST_SET_BAND_MODE, none);
+        t.put(RIL_REQUEST_QUERY_AVAILABLE_BAND_MODE, ints);
+        t.put(RIL_REQUEST_STK_GET_PROFILE, string);
+        t.put(RIL_REQUEST_STK_SET_PROFILE, none);
+        t.put(RIL_REQUEST_STK_SEND_ENVELOPE_COMMAND, string);
+        t.put(RIL_REQUEST_STK_SEND_TERMINAL_RESPONSE, none);
+        t.put(RIL_REQUEST_STK_HANDLE_CALL_SETUP_REQUESTED_FROM_SIM, ints);
+        t.put(RIL_REQUEST_EXPLICIT_CALL_TRANSFER, none);
+        t.put(RIL_REQUEST_SET_PREFERRED_NETWORK_TYPE, none);
+        t.put(RIL_REQUEST_GET_PREFERRED_NETWORK_TYPE, networkType);
+        t.put(RIL_REQUEST_GET_NEIGHBORING_CELL_IDS, cellList);
+        t.put(RIL_REQUEST_SET_LOCATION_UPDATES, none);
+        t.put(RIL_REQUEST_CDMA_SET_SUBSCRIPTION_SOURCE, none);
+        t.put(RIL_REQUEST_CDMA_SET_ROAMING_PREFERENCE, none);
+        t.put(RIL_REQUEST_CDMA_QUERY_ROAMING_PREFERENCE, ints);
+        t.put(RIL_REQUEST_SET_TTY_MODE, none);
+        t.put(RIL_REQUEST_QUERY_TTY_MODE, ints);
+        t.put(RIL_REQUEST_CDMA_SET_PREFERRED_VOICE_PRIVACY_MODE, none);
+        t.put(RIL_REQUEST_CDMA_QUERY_PREFERRED_VOICE_PRIVACY_MODE, ints);
+        t.put(RIL_REQUEST_CDMA_FLASH, none);
+        t.put(RIL_REQUEST_CDMA_BURST_DTMF, none);
+        t.put(RIL_REQUEST_CDMA_SEND_SMS, sms);
+        t.put(RIL_REQUEST_CDMA_SMS_ACKNOWLEDGE, none);
+        t.put(RIL_REQUEST_GSM_GET_BROADCAST_CONFIG, gmsBroadcastConfig);
+        t.put(RIL_REQUEST_GSM_SET_BROADCAST_CONFIG, none);
+        t.put(RIL_REQUEST_GSM_BROADCAST_ACTIVATION, none);
+        t.put(RIL_REQUEST_CDMA_GET_BROADCAST_CONFIG, cdmaBroadcastConfig);
+        t.put(RIL_REQUEST_CDMA_SET_BROADCAST_CONFIG, none);
+        t.put(RIL_REQUEST_CDMA_BROADCAST_ACTIVATION, none);
+        t.put(RIL_REQUEST_CDMA_VALIDATE_AND_WRITE_AKEY, none);
+        t.put(RIL_REQUEST_CDMA_SUBSCRIPTION, cdmaSubscription);
+        t.put(RIL_REQUEST_CDMA_WRITE_SMS_TO_RUIM, ints);
+        t.put(RIL_REQUEST_CDMA_DELETE_SMS_ON_RUIM, none);
+        t.put(RIL_REQUEST_DEVICE_IDENTITY, strings);
+        t.put(RIL_REQUEST_GET_SMSC_ADDRESS, string);
+        t.put(RIL_REQUEST_SET_SMSC_ADDRESS, none);
+        t.put(RIL_REQUEST_EXIT_EMERGENCY_CALLBACK_MODE, none);
+        t.put(RIL_REQUEST_REPORT_SMS_MEMORY_STATUS, none);
+        t.put(RIL_REQUEST_REPORT_STK_SERVICE_IS_RUNNING, none);
+        t.put(RIL_REQUEST_DIAL_EMERGENCY, none);
+
+        return t;
+    }
+
     @Override
     public void
     dial(String address, int clirMode, UUSInfo uusInfo, Message result) {
         RILRequest rr;
-        if (!mIsSamsungCdma && PhoneNumberUtils.isEmergencyNumber(address)) {
+        if (!sIsSamsungCdma && mEmergencyNumbers.isEmergencyNumber(address)) {
             dialEmergencyCall(address, clirMode, result);
             return;
         }
@@ -334,12 +806,32 @@ public class SamsungRIL extends RIL implements CommandsInterface {
     @Override
     protected void
     processUnsolicited (Parcel p) {
+        if (sCapture != null) sCapture.capture(RilCaptureFormat.UNSOLICITED, p);
+
+        if (mPipeline != null) {
+            mPipeline.post(RilReceivePipeline.UNSOLICITED, p, null);
+        } else {
+            synchronized (sDecodeLock) {
+                handleUnsolicited(p);
+            }
+        }
+    }
+
+    private void
+    handleUnsolicited (Parcel p) {
         int response;
         Object ret;
         int dataPosition = p.dataPosition();
 
         response = p.readInt();
 
+        sTrace.record(RilTrace.NO_SERIAL, response, 0);
+
+        if (SingleFlightCoalescer.isPollTrigger(response)) {
+            // The polls this triggers must not join a request sent before it
+            sCoalescer.invalidate();
+        }
+
         switch(response) {
         /*
 				cat libs/telephony/ril_unsol_commands.h \
@@ -348,7 +840,7 @@ public class SamsungRIL extends RIL implements CommandsInterface {
          */
 
         case RIL_UNSOL_NITZ_TIME_RECEIVED: ret =  responseString(p); break;
-        case RIL_UNSOL_SIGNAL_STRENGTH: ret = responseSignalStrength(p); break;
+        case RIL_UNSOL_SIGNAL_STRENGTH: decodeSignalStrength(p, sSignalScratch); ret = sSignalScratch; break;
         case RIL_UNSOL_CDMA_INFO_REC: ret = responseCdmaInformationRecord(p); break;
         case RIL_UNSOL_HSDPA_STATE_CHANGED: ret = responseInts(p); break;
         case RIL_UNSOL_STK_PROACTIVE_COMMAND: ret = responseString(p); break;
@@ -364,6 +856,31 @@ public class SamsungRIL extends RIL implements CommandsInterface {
         case RIL_UNSOL_AM: ret = responseString(p); break;
 
         default:
+            if (response == RIL_UNSOL_RIL_CONNECTED) {
+                // A new rild connection, nothing sent before it will be answered
+                sLatency.onConnected();
+                sIdentity.invalidateAll();
+                sSimIo.invalidateAll();
+                sProps.invalidateAll();
+            } else if (response == RIL_UNSOL_RESPONSE_SIM_STATUS_CHANGED) {
+                sIdentity.invalidateSim();
+                sSimIo.invalidateAll();
+                sProps.invalidate(RilProperties.SIM_STATE);
+            } else if (response == RIL_UNSOL_SIM_REFRESH) {
+                // refreshResult, efId as in responseSimRefresh. An int[] with
+                // a count in front reads as an unknown result and drops everything.
+                int refreshResult = p.dataAvail() >= 4 ? p.readInt() : -1;
+                int efId = p.dataAvail() >= 4 ? p.readInt() : 0;
+                sSimIo.onRefresh(refreshResult, efId);
+            } else if (response == RIL_UNSOL_RESPONSE_NEW_SMS_ON_SIM) {
+                sSimIo.invalidateFile(SimIoCache.EF_SMS);
+            }
+
+            if (sUnsolFilter.drop(response, null, 0)) {
+                if (RILJ_LOGV) riljLog("Dropping " + responseToString(response) + ", filtered");
+                return;
+            }
+
             // Rewind the Parcel
             p.setDataPosition(dataPosition);
 
@@ -372,24 +889,35 @@ public class SamsungRIL extends RIL implements CommandsInterface {
             return;
         }
 
+        // Info records are filtered one by one, see notifyRegistrantsCdmaInfoRec
+        if (response != RIL_UNSOL_CDMA_INFO_REC) {
+            boolean drop;
+
+            if (response == RIL_UNSOL_SIGNAL_STRENGTH) {
+                drop = sUnsolFilter.drop(response, sSignalScratch, sSignalScratch.length);
+            } else if (response == RIL_UNSOL_HSDPA_STATE_CHANGED) {
+                drop = sUnsolFilter.drop(response, (int[]) ret, ((int[]) ret).length);
+            } else {
+                drop = sUnsolFilter.drop(response, null, 0);
+            }
+
+            if (drop) {
+                if (RILJ_LOGV) riljLog("Dropping " + responseToString(response) + ", filtered");
+                return;
+            }
+        }
+
         switch(response) {
         case RIL_UNSOL_HSDPA_STATE_CHANGED:
             if (RILJ_LOGD) unsljLog(response);
 
-            boolean newHsdpa = ((int[])ret)[0] == 1;
-            String curState = SystemProperties.get(TelephonyProperties.PROPERTY_DATA_NETWORK_TYPE);
-            boolean curHsdpa = false;
-
-            if (curState.startsWith("HSDPA")) {
-                curHsdpa = true;
-            } else if (!curState.startsWith("UMTS")) {
-                // Don't send poll request if not on 3g
+            boolean hsdpa = ((int[])ret)[0] == 1;
+            if (mHsdpaTracker == null) {
+                // Too early, the first data registration poll reports the state
                 break;
             }
-
-            if (curHsdpa != newHsdpa) {
-                mVoiceNetworkStateRegistrants
-                    .notifyRegistrants(new AsyncResult(null, null, null));
+            if (!sParker.parkHsdpaState(hsdpa)) {
+                mHsdpaTracker.onHsdpaStateChanged(hsdpa);
             }
             break;
 
@@ -402,27 +930,17 @@ public class SamsungRIL extends RIL implements CommandsInterface {
 
             Object[] result = new Object[2];
 
-            String nitz = (String)ret;
-            if (RILJ_LOGD) riljLog(" RIL_UNSOL_NITZ_TIME_RECEIVED length = "
-                    + nitz.split("[/:,+-]").length);
-
             // remove the tailing information that samsung added to the string
-            if(nitz.split("[/:,+-]").length >= 9)
-                nitz = nitz.substring(0,(nitz.lastIndexOf(",")));
+            String nitz = sNitzParser.normalize((String)ret);
 
             if (RILJ_LOGD) riljLog(" RIL_UNSOL_NITZ_TIME_RECEIVED striped nitz = "
-                    + nitz);
+                    + nitz + " fields = " + sNitzParser.getFieldCount());
 
             result[0] = nitz;
             result[1] = Long.valueOf(nitzReceiveTime);
 
-            if (mNITZTimeRegistrant != null) {
-
-                mNITZTimeRegistrant
-                .notifyRegistrant(new AsyncResult (null, result, null));
-            } else {
-                // in case NITZ time registrant isnt registered yet
-                mLastNITZTimeInfo = nitz;
+            if (!sParker.parkNitz(result)) {
+                notifyNitz(result);
             }
             break;
 
@@ -431,23 +949,31 @@ public class SamsungRIL extends RIL implements CommandsInterface {
             // frequently
             if (RILJ_LOGV) unsljLogvRet(response, ret);
 
-            if (mSignalStrengthRegistrant != null) {
-                mSignalStrengthRegistrant.notifyRegistrant(
-                                    new AsyncResult (null, ret, null));
+            if (mSignalFilter == null) {
+                int[] v = sSignalScratch;
+
+                synchronized (sEarlyEvents) {
+                    sEarlyEvents.save(EarlyEventBuffer.SIGNAL_STRENGTH, new SignalStrength(
+                            v[0], v[1], v[2], v[3], v[4], v[5], v[6], !sIsSamsungCdma));
+                }
+            } else if (!sParker.parkSignalStrength(sSignalScratch)) {
+                mSignalFilter.offer(sSignalScratch);
             }
             break;
 
         case RIL_UNSOL_STK_PROACTIVE_COMMAND:
             if (RILJ_LOGD) unsljLogRet(response, ret);
 
-            if (mCatProCmdRegistrant != null) {
-                mCatProCmdRegistrant.notifyRegistrant(
-                                    new AsyncResult (null, ret, null));
-            } else {
-                // The RIL will send a CAT proactive command before the
-                // registrant is registered. Buffer it to make sure it
-                // does not get ignored (and breaks CatService).
-                mCatProCmdBuffer = ret;
+            synchronized (sEarlyEvents) {
+                if (mCatProCmdRegistrant != null) {
+                    mCatProCmdRegistrant.notifyRegistrant(
+                                        new AsyncResult (null, ret, null));
+                } else {
+                    // The RIL will send a CAT proactive command before the
+                    // registrant is registered. Buffer it to make sure it
+                    // does not get ignored (and breaks CatService).
+                    sEarlyEvents.save(EarlyEventBuffer.CAT_PROACTIVE_CMD, ret);
+                }
             }
             break;
 
@@ -468,106 +994,196 @@ public class SamsungRIL extends RIL implements CommandsInterface {
             break;
 
         case RIL_UNSOL_AM:
-            String amString = (String) ret;
-            Rlog.d(RILJ_LOG_TAG, "Executing AM: " + amString);
+            if (RILJ_LOGD) unsljLogRet(response, ret);
 
-            try {
-                Runtime.getRuntime().exec("am " + amString);
-            } catch (IOException e) {
-                e.printStackTrace();
-                Rlog.e(RILJ_LOG_TAG, "am " + amString + " could not be executed.");
+            if (mAmDispatcher != null) {
+                mAmDispatcher.dispatch((String) ret);
             }
             break;
         }
     }
 
+    private void
+    notifyNitz(Object[] result) {
+        synchronized (sEarlyEvents) {
+            if (mNITZTimeRegistrant != null) {
+
+                mNITZTimeRegistrant
+                .notifyRegistrant(new AsyncResult (null, result, null));
+            } else {
+                // in case NITZ time registrant isnt registered yet
+                sEarlyEvents.save(EarlyEventBuffer.NITZ, result);
+            }
+        }
+    }
+
+    @Override
+    public void
+    sendScreenState(boolean on, Message result) {
+        super.sendScreenState(on, result);
+
+        // Delivers what was parked while the screen was off
+        sParker.setScreenOn(on, new ScreenOffParker.Sink() {
+            @Override
+            public void onSignalStrength(int[] values) {
+                mSignalFilter.offer(values);
+            }
+
+            @Override
+            public void onHsdpaStateChanged(boolean hsdpa) {
+                mHsdpaTracker.onHsdpaStateChanged(hsdpa);
+            }
+
+            @Override
+            public void onNitz(Object[] nitz) {
+                notifyNitz(nitz);
+            }
+        });
+    }
+
     @Override
     protected Object
     responseCallList(Parcel p) {
         int num;
-        boolean isVideo;
         ArrayList<DriverCall> response;
         DriverCall dc;
+        CallListSnapshot.Call call = mCallScratch;
+        CallListSnapshot snapshot = mReplaying ? mReplaySnapshot : mCallSnapshot;
+        boolean sorted = true;
         int dataAvail = p.dataAvail();
         int pos = p.dataPosition();
         int size = p.dataSize();
 
-        Rlog.d(RILJ_LOG_TAG, "Parcel size = " + size);
-        Rlog.d(RILJ_LOG_TAG, "Parcel pos = " + pos);
-        Rlog.d(RILJ_LOG_TAG, "Parcel dataAvail = " + dataAvail);
+        boolean traceCalls = sTrace.isEnabled(RilTrace.CALL_LIST);
+        boolean traceUus = sTrace.isEnabled(RilTrace.UUS);
+
+        if (traceCalls) {
+            Rlog.d(RILJ_LOG_TAG, "Parcel size = " + size);
+            Rlog.d(RILJ_LOG_TAG, "Parcel pos = " + pos);
+            Rlog.d(RILJ_LOG_TAG, "Parcel dataAvail = " + dataAvail);
+        }
 
         num = p.readInt();
         response = new ArrayList<DriverCall>(num);
 
+        snapshot.beginPoll();
+
         for (int i = 0 ; i < num ; i++) {
-            if (mIsSamsungCdma)
-                dc = new SamsungDriverCall();
-            else
-                dc = new DriverCall();
-
-            dc.state                = DriverCall.stateFromCLCC(p.readInt());
-            dc.index                = p.readInt();
-            dc.TOA                  = p.readInt();
-            dc.isMpty               = (0 != p.readInt());
-            dc.isMT                 = (0 != p.readInt());
-            dc.als                  = p.readInt();
-            dc.isVoice              = (0 != p.readInt());
-            isVideo                 = (0 != p.readInt());
-            dc.isVoicePrivacy       = (0 != p.readInt());
-            dc.number               = p.readString();
-            int np                  = p.readInt();
-            dc.numberPresentation   = DriverCall.presentationFromCLIP(np);
-            dc.name                 = p.readString();
-            dc.namePresentation     = p.readInt();
+            call.state              = p.readInt();
+            call.index              = p.readInt();
+            call.toa                = p.readInt();
+            call.isMpty             = (0 != p.readInt());
+            call.isMT               = (0 != p.readInt());
+            call.als                = p.readInt();
+            call.isVoice            = (0 != p.readInt());
+            call.isVideo            = (0 != p.readInt());
+            call.isVoicePrivacy     = (0 != p.readInt());
+            call.number             = p.readString();
+            call.numberPresentation = p.readInt();
+            call.name               = p.readString();
+            call.namePresentation   = p.readInt();
             int uusInfoPresent      = p.readInt();
 
-            Rlog.d(RILJ_LOG_TAG, "state = " + dc.state);
-            Rlog.d(RILJ_LOG_TAG, "index = " + dc.index);
-            Rlog.d(RILJ_LOG_TAG, "state = " + dc.TOA);
-            Rlog.d(RILJ_LOG_TAG, "isMpty = " + dc.isMpty);
-            Rlog.d(RILJ_LOG_TAG, "isMT = " + dc.isMT);
-            Rlog.d(RILJ_LOG_TAG, "als = " + dc.als);
-            Rlog.d(RILJ_LOG_TAG, "isVoice = " + dc.isVoice);
-            Rlog.d(RILJ_LOG_TAG, "isVideo = " + isVideo);
-            Rlog.d(RILJ_LOG_TAG, "number = " + dc.number);
-            Rlog.d(RILJ_LOG_TAG, "numberPresentation = " + np);
-            Rlog.d(RILJ_LOG_TAG, "name = " + dc.name);
-            Rlog.d(RILJ_LOG_TAG, "namePresentation = " + dc.namePresentation);
-            Rlog.d(RILJ_LOG_TAG, "uusInfoPresent = " + uusInfoPresent);
+            if (traceCalls) {
+                Rlog.d(RILJ_LOG_TAG, "state = " + call.state);
+                Rlog.d(RILJ_LOG_TAG, "index = " + call.index);
+                Rlog.d(RILJ_LOG_TAG, "state = " + call.toa);
+                Rlog.d(RILJ_LOG_TAG, "isMpty = " + call.isMpty);
+                Rlog.d(RILJ_LOG_TAG, "isMT = " + call.isMT);
+                Rlog.d(RILJ_LOG_TAG, "als = " + call.als);
+                Rlog.d(RILJ_LOG_TAG, "isVoice = " + call.isVoice);
+                Rlog.d(RILJ_LOG_TAG, "isVideo = " + call.isVideo);
+                Rlog.d(RILJ_LOG_TAG, "number = " + call.number);
+                Rlog.d(RILJ_LOG_TAG, "numberPresentation = " + call.numberPresentation);
+                Rlog.d(RILJ_LOG_TAG, "name = " + call.name);
+                Rlog.d(RILJ_LOG_TAG, "namePresentation = " + call.namePresentation);
+                Rlog.d(RILJ_LOG_TAG, "uusInfoPresent = " + uusInfoPresent);
+            }
 
+            UUSInfo uusInfo = null;
             if (uusInfoPresent == 1) {
-                dc.uusInfo = new UUSInfo();
-                dc.uusInfo.setType(p.readInt());
-                dc.uusInfo.setDcs(p.readInt());
+                uusInfo = new UUSInfo();
+                uusInfo.setType(p.readInt());
+                uusInfo.setDcs(p.readInt());
                 byte[] userData = p.createByteArray();
-                dc.uusInfo.setUserData(userData);
-                Rlog
-                .v(RILJ_LOG_TAG, String.format("Incoming UUS : type=%d, dcs=%d, length=%d",
-                        dc.uusInfo.getType(), dc.uusInfo.getDcs(),
-                        dc.uusInfo.getUserData().length));
-                Rlog.v(RILJ_LOG_TAG, "Incoming UUS : data (string)="
-                        + new String(dc.uusInfo.getUserData()));
-                Rlog.v(RILJ_LOG_TAG, "Incoming UUS : data (hex): "
-                        + IccUtils.bytesToHexString(dc.uusInfo.getUserData()));
-            } else {
+                uusInfo.setUserData(userData);
+                if (traceUus) {
+                    Rlog.v(RILJ_LOG_TAG, String.format("Incoming UUS : type=%d, dcs=%d, length=%d",
+                            uusInfo.getType(), uusInfo.getDcs(),
+                            uusInfo.getUserData().length));
+                    Rlog.v(RILJ_LOG_TAG, "Incoming UUS : data (string)="
+                            + new String(uusInfo.getUserData()));
+                    Rlog.v(RILJ_LOG_TAG, "Incoming UUS : data (hex): "
+                            + IccUtils.bytesToHexString(uusInfo.getUserData()));
+                }
+            } else if (traceUus) {
                 Rlog.v(RILJ_LOG_TAG, "Incoming UUS : NOT present!");
             }
+            call.hasUus = uusInfo != null;
+
+            // Unchanged calls keep the DriverCall handed out by the last poll
+            dc = snapshot.lookup(call);
+            if (dc == null) {
+                if (sIsSamsungCdma)
+                    dc = new SamsungDriverCall();
+                else
+                    dc = new DriverCall();
+
+                dc.state                = DriverCall.stateFromCLCC(call.state);
+                dc.index                = call.index;
+                dc.TOA                  = call.toa;
+                dc.isMpty               = call.isMpty;
+                dc.isMT                 = call.isMT;
+                dc.als                  = call.als;
+                dc.isVoice              = call.isVoice;
+                dc.isVoicePrivacy       = call.isVoicePrivacy;
+                dc.numberPresentation   = DriverCall.presentationFromCLIP(call.numberPresentation);
+                dc.name                 = call.name;
+                dc.namePresentation     = call.namePresentation;
+                dc.uusInfo              = uusInfo;
+
+                // Make sure there's a leading + on addresses with a TOA of 145
+                dc.number = PhoneNumberUtils.stringFromStringAndTOA(call.number, call.toa);
+
+                snapshot.update(call, dc);
+            }
 
-            // Make sure there's a leading + on addresses with a TOA of 145
-            dc.number = PhoneNumberUtils.stringFromStringAndTOA(dc.number, dc.TOA);
-
+            if (sorted && !response.isEmpty()
+                    && response.get(response.size() - 1).index > dc.index) {
+                sorted = false;
+            }
             response.add(dc);
 
-            if (dc.isVoicePrivacy) {
-                mVoicePrivacyOnRegistrants.notifyRegistrants();
-                Rlog.d(RILJ_LOG_TAG, "InCall VoicePrivacy is enabled");
-            } else {
-                mVoicePrivacyOffRegistrants.notifyRegistrants();
-                Rlog.d(RILJ_LOG_TAG, "InCall VoicePrivacy is disabled");
+            // Only tell the registrants when the privacy state actually flips
+            int voicePrivacy = dc.isVoicePrivacy ? 1 : 0;
+            if (voicePrivacy != mVoicePrivacy && !mReplaying) {
+                mVoicePrivacy = voicePrivacy;
+
+                if (dc.isVoicePrivacy) {
+                    mVoicePrivacyOnRegistrants.notifyRegistrants();
+                    if (traceCalls) Rlog.d(RILJ_LOG_TAG, "InCall VoicePrivacy is enabled");
+                } else {
+                    mVoicePrivacyOffRegistrants.notifyRegistrants();
+                    if (traceCalls) Rlog.d(RILJ_LOG_TAG, "InCall VoicePrivacy is disabled");
+                }
             }
         }
 
-        Collections.sort(response);
+        snapshot.endPoll();
+
+        if (num == 0 && !mReplaying) {
+            // Next call reports its privacy state again
+            mVoicePrivacy = VOICE_PRIVACY_UNKNOWN;
+        }
+
+        if (traceCalls && snapshot.hasChanges()) {
+            Rlog.d(RILJ_LOG_TAG, "Call list delta: " + snapshot.deltaString());
+        }
+
+        // rild reports the calls ordered by index, only sort when it did not
+        if (!sorted) {
+            Collections.sort(response);
+        }
 
         return response;
     }
@@ -576,7 +1192,7 @@ public class SamsungRIL extends RIL implements CommandsInterface {
     responseLastCallFailCause(Parcel p) {
         int response[] = (int[])responseInts(p);
 
-        if (mIsSamsungCdma && response.length > 0 &&
+        if (sIsSamsungCdma && response.length > 0 &&
             response[0] == com.android.internal.telephony.cdma.CallFailCause.ERROR_UNSPECIFIED) {
 
             // Far-end hangup returns ERROR_UNSPECIFIED, which shows "Call Lost" dialog.
@@ -590,20 +1206,33 @@ public class SamsungRIL extends RIL implements CommandsInterface {
     @Override
     protected Object
     responseSignalStrength(Parcel p) {
+        int[] response = sSignalScratch;
+
+        decodeSignalStrength(p, response);
+
+        return new SignalStrength(
+            response[0], response[1], response[2], response[3], response[4],
+            response[5], response[6], !sIsSamsungCdma);
+    }
+
+    // Reads the 7 signal strength ints into response and applies the Samsung
+    // fixups. The caller owns response, so the unsolicited path can reuse it.
+    private void
+    decodeSignalStrength(Parcel p, int[] response) {
         // When SIM is PIN-unlocked, the RIL responds with APPSTATE_UNKNOWN and
         // does not follow up with RIL_UNSOL_RESPONSE_SIM_STATUS_CHANGED. We
         // notify the system here.
-        String state = SystemProperties.get(TelephonyProperties.PROPERTY_SIM_STATE);
-        if (!"READY".equals(state) && mIccStatusChangedRegistrants != null && !mIsSamsungCdma) {
+        String state = sProps.get(RilProperties.SIM_STATE);
+        if (!"READY".equals(state) && mIccStatusChangedRegistrants != null && !sIsSamsungCdma
+                && !mReplaying) {
             mIccStatusChangedRegistrants.notifyRegistrants();
         }
 
-        int[] response = new int[7];
         for (int i = 0 ; i < 7 ; i++) {
             response[i] = p.readInt();
         }
 
-        if (mIsSamsungCdma){
+        if (sIsSamsungCdma){
             if(response[3] < 0){
                response[3] = -response[3];
             }
@@ -612,7 +1241,7 @@ public class SamsungRIL extends RIL implements CommandsInterface {
         else {
             /* Matching Samsung signal strength to asu.
                Method taken from Samsungs cdma/gsmSignalStateTracker */
-            if(mSignalbarCount)
+            if(sSignalbarCount)
             {
                 // Samsung sends the count of bars that should be displayed instead of
                 // a real signal strength
@@ -628,22 +1257,40 @@ public class SamsungRIL extends RIL implements CommandsInterface {
             if(response[6] < 0 || response[6] > 8)
                 response[6] = -1;
         }
-
-        SignalStrength signalStrength = new SignalStrength(
-            response[0], response[1], response[2], response[3], response[4],
-            response[5], response[6], !mIsSamsungCdma);
-        return signalStrength;
     }
 
     protected Object
     responseVoiceRegistrationState(Parcel p) {
         String response[] = (String[])responseStrings(p);
 
-        if (mIsSamsungCdma && response.length > 6) {
+        if (sIsSamsungCdma && response.length > 6) {
             // These values are provided in hex, convert to dec.
-            response[4] = Integer.toString(Integer.parseInt(response[4], 16)); // baseStationId
-            response[5] = Integer.toString(Integer.parseInt(response[5], 16)); // baseStationLatitude
-            response[6] = Integer.toString(Integer.parseInt(response[6], 16)); // baseStationLongitude
+            response[4] = sStringPool.hexToDecimal(response[4]); // baseStationId
+            response[5] = sStringPool.hexToDecimal(response[5]); // baseStationLatitude
+            response[6] = sStringPool.hexToDecimal(response[6]); // baseStationLongitude
+        }
+
+        sStringPool.canonicalize(response);
+        return response;
+    }
+
+    protected Object
+    responseOperator(Parcel p) {
+        String response[] = (String[])responseStrings(p);
+
+        sStringPool.canonicalize(response);
+        return response;
+    }
+
+    protected Object
+    responseDataRegistrationState(Parcel p) {
+        String response[] = (String[])responseStrings(p);
+
+        sStringPool.canonicalize(response);
+
+        // Keeps the HSDPA handler from reading the network type property
+        if (!mReplaying && mHsdpaTracker != null) {
+            mHsdpaTracker.onDataRegistrationState(response);
         }
 
         return response;
@@ -654,7 +1301,7 @@ public class SamsungRIL extends RIL implements CommandsInterface {
         int response[] = (int[]) responseInts(p);
 
         // When the modem responds Phone.NT_MODE_GLOBAL, it means Phone.NT_MODE_WCDMA_PREF
-        if (!mIsSamsungCdma && response[0] == Phone.NT_MODE_GLOBAL) {
+        if (!sIsSamsungCdma && response[0] == Phone.NT_MODE_GLOBAL) {
             Rlog.d(RILJ_LOG_TAG, "Overriding network type response from global to WCDMA preferred");
             response[0] = Phone.NT_MODE_WCDMA_PREF;
         }
@@ -671,22 +1318,11 @@ public class SamsungRIL extends RIL implements CommandsInterface {
         if (strings.length >= 2) {
             dataCall.cid = Integer.parseInt(strings[0]);
 
-            if (mIsSamsungCdma) {
+            if (sIsSamsungCdma && !mReplaying) {
                 // We're responsible for starting/stopping the pppd_cdma service.
-                if (!startPppdCdmaService(strings[1])) {
-                    // pppd_cdma service didn't respond timely.
-                    dataCall.status = DcFailCause.ERROR_UNSPECIFIED.getErrorCode();
-                    return dataCall;
-                }
-
-                // pppd_cdma service responded, pull network parameters set by ip-up script.
-                dataCall.ifname = SystemProperties.get("net.cdma.ppp.interface");
-                String   ifprop = "net." + dataCall.ifname;
-
-                dataCall.addresses = new String[] {SystemProperties.get(ifprop + ".local-ip")};
-                dataCall.gateways  = new String[] {SystemProperties.get(ifprop + ".remote-ip")};
-                dataCall.dnses     = new String[] {SystemProperties.get(ifprop + ".dns1"),
-                                                   SystemProperties.get(ifprop + ".dns2")};
+                // processSolicited hands this to mPppd, which completes the
+                // request once the service is up, without blocking this thread.
+                return PppdCdmaController.prepare(dataCall, strings[1]);
             } else {
                 dataCall.ifname = strings[1];
 
@@ -695,7 +1331,7 @@ public class SamsungRIL extends RIL implements CommandsInterface {
                 }
             }
         } else {
-            if (mIsSamsungCdma) {
+            if (sIsSamsungCdma && !mReplaying) {
                 // On rare occasion the pppd_cdma service is left active from a stale
                 // session, causing the data call setup to fail.  Make sure that pppd_cdma
                 // is stopped now, so that the next setup attempt may succeed.
@@ -709,60 +1345,76 @@ public class SamsungRIL extends RIL implements CommandsInterface {
         return dataCall;
     }
 
-    private boolean startPppdCdmaService(String ttyname) {
-        SystemProperties.set("net.cdma.datalinkinterface", ttyname);
-
-        // Connecting: Set ril.cdma.data_state=1 to (re)start pppd_cdma service,
-        // which responds by setting ril.cdma.data_state=2 once connection is up.
-        SystemProperties.set("ril.cdma.data_state", "1");
-        Rlog.d(RILJ_LOG_TAG, "Set ril.cdma.data_state=1, waiting for ril.cdma.data_state=2.");
-
-        // Typically takes < 200 ms on my Epic, so sleep in 100 ms intervals.
-        for (int i = 0; i < 10; i++) {
-            try {Thread.sleep(100);} catch (InterruptedException e) {}
-
-            if (SystemProperties.getInt("ril.cdma.data_state", 1) == 2) {
-                Rlog.d(RILJ_LOG_TAG, "Got ril.cdma.data_state=2, connected.");
-                return true;
+    @Override
+    public void
+    setupDataCall(String radioTechnology, String profile, String apn,
+            String user, String password, String authType, String protocol,
+            Message result) {
+        if (sIsSamsungCdma) {
+            long requestTime = SystemClock.elapsedRealtime();
+            String key = radioTechnology + "/" + profile + "/" + apn + "/" + user + "/"
+                    + password + "/" + authType + "/" + protocol;
+
+            if (mPppd.onSetupRequested(key, requestTime, result)) {
+                return;
             }
-        }
 
-        // Taking > 1 s here, try up to 10 s, which is hopefully long enough.
-        for (int i = 1; i < 10; i++) {
-            try {Thread.sleep(1000);} catch (InterruptedException e) {}
-
-            if (SystemProperties.getInt("ril.cdma.data_state", 1) == 2) {
-                Rlog.d(RILJ_LOG_TAG, "Got ril.cdma.data_state=2, connected.");
-                return true;
-            }
+            // Same as the base class, mPppd needs the serial
+            RILRequest rr = RILRequest.obtain(RIL_REQUEST_SETUP_DATA_CALL, result);
+
+            rr.mParcel.writeInt(7);
+            rr.mParcel.writeString(radioTechnology);
+            rr.mParcel.writeString(profile);
+            rr.mParcel.writeString(apn);
+            rr.mParcel.writeString(user);
+            rr.mParcel.writeString(password);
+            rr.mParcel.writeString(authType);
+            rr.mParcel.writeString(protocol);
+
+            if (RILJ_LOGD) riljLog(rr.serialString() + "> "
+                    + requestToString(rr.mRequest) + " " + radioTechnology + " "
+                    + profile + " " + apn + " " + user + " "
+                    + password + " " + authType + " " + protocol);
+
+            mPppd.onSetupSent(rr.mSerial, key, requestTime);
+            send(rr);
+            return;
         }
 
-        // Disconnect: Set ril.cdma.data_state=0 to stop pppd_cdma service.
-        Rlog.d(RILJ_LOG_TAG, "Didn't get ril.cdma.data_state=2 timely, aborting.");
-        SystemProperties.set("ril.cdma.data_state", "0");
-
-        return false;
+        super.setupDataCall(radioTechnology, profile, apn, user, password, authType,
+                protocol, result);
     }
 
     @Override
     public void
     deactivateDataCall(int cid, int reason, Message result) {
-        if (mIsSamsungCdma) {
-            // Disconnect: Set ril.cdma.data_state=0 to stop pppd_cdma service.
-            Rlog.d(RILJ_LOG_TAG, "Set ril.cdma.data_state=0.");
-            SystemProperties.set("ril.cdma.data_state", "0");
+        if (sIsSamsungCdma) {
+            // Only a plain deactivation is parked, not one for radio off
+            if (reason == DEACTIVATE_REASON_NONE && mPppd.park(cid, result)) {
+                if (RILJ_LOGD) riljLog("[parked]> "
+                        + requestToString(RIL_REQUEST_DEACTIVATE_DATA_CALL) + " " + cid);
+                return;
+            }
+            mPppd.stop(cid);
         }
 
         super.deactivateDataCall(cid, reason, result);
     }
 
+    // The deactivation mPppd held back, nobody waits for its result
+    private void
+    sendDeactivateDataCall(int cid) {
+        super.deactivateDataCall(cid, DEACTIVATE_REASON_NONE, null);
+    }
+
     protected Object
     responseCdmaSubscription(Parcel p) {
         String response[] = (String[])responseStrings(p);
 
-        if (/* mIsSamsungCdma && */ response.length == 4) {
+        if (/* sIsSamsungCdma && */ response.length == 4) {
             // PRL version is missing in subscription parcel, add it from properties.
-            String prlVersion = SystemProperties.get("ril.prl_ver_1").split(":")[1];
+            String prl        = sProps.get(RilProperties.PRL_VERSION);
+            String prlVersion = prl.split(":")[1];
             response          = new String[] {response[0], response[1], response[2],
                                               response[3], prlVersion};
         }
@@ -810,17 +1462,23 @@ public class SamsungRIL extends RIL implements CommandsInterface {
     notifyRegistrantsCdmaInfoRec(CdmaInformationRecords infoRec) {
         final int response = RIL_UNSOL_CDMA_INFO_REC;
 
-        if (/* mIsSamsungCdma && */ infoRec.record instanceof CdmaSignalInfoRec) {
+        int fieldCount = 0;
+
+        // Signal info records have the fields present, signal type, alert
+        // pitch and signal, other records none
+        if (/* sIsSamsungCdma && */ infoRec.record instanceof CdmaSignalInfoRec) {
             CdmaSignalInfoRec sir = (CdmaSignalInfoRec)infoRec.record;
-            if (sir != null && sir.isPresent &&
-                sir.signalType == SignalToneUtil.IS95_CONST_IR_SIGNAL_IS54B &&
-                sir.alertPitch == SignalToneUtil.IS95_CONST_IR_ALERT_MED    &&
-                sir.signal     == SignalToneUtil.IS95_CONST_IR_SIG_IS54B_L) {
+            sSignalInfoFields[0] = sir.isPresent ? 1 : 0;
+            sSignalInfoFields[1] = sir.signalType;
+            sSignalInfoFields[2] = sir.alertPitch;
+            sSignalInfoFields[3] = sir.signal;
+            fieldCount = 4;
+        }
 
-                Rlog.d(RILJ_LOG_TAG, "Dropping \"" + responseToString(response) + " " +
-                      retToString(response, sir) + "\" to prevent \"ring of death\" bug.");
-                return;
-            }
+        if (sUnsolFilter.drop(response, sSignalInfoFields, fieldCount)) {
+            Rlog.d(RILJ_LOG_TAG, "Dropping \"" + responseToString(response) + " " +
+                  retToString(response, infoRec.record) + "\", filtered.");
+            return;
         }
 
         super.notifyRegistrantsCdmaInfoRec(infoRec);
@@ -850,12 +1508,139 @@ public class SamsungRIL extends RIL implements CommandsInterface {
 
     @Override
     public void setOnCatProactiveCmd(Handler h, int what, Object obj) {
-        mCatProCmdRegistrant = new Registrant (h, what, obj);
-        if (mCatProCmdBuffer != null) {
-            mCatProCmdRegistrant.notifyRegistrant(
-                                new AsyncResult (null, mCatProCmdBuffer, null));
-            mCatProCmdBuffer = null;
+        synchronized (sEarlyEvents) {
+            mCatProCmdRegistrant = new Registrant (h, what, obj);
+            sEarlyEvents.replay(EarlyEventBuffer.CAT_PROACTIVE_CMD, mCatProCmdRegistrant);
+        }
+    }
+
+    @Override
+    public void setOnNITZTime(Handler h, int what, Object obj) {
+        synchronized (sEarlyEvents) {
+            super.setOnNITZTime(h, what, obj);
+            sEarlyEvents.replay(EarlyEventBuffer.NITZ, mNITZTimeRegistrant);
+        }
+    }
+
+    @Override
+    public void setOnSignalStrengthUpdate(Handler h, int what, Object obj) {
+        synchronized (sEarlyEvents) {
+            super.setOnSignalStrengthUpdate(h, what, obj);
+            if (mSignalFilter != null) mSignalFilter.reset();
+            sEarlyEvents.replay(EarlyEventBuffer.SIGNAL_STRENGTH, mSignalStrengthRegistrant);
+        }
+    }
+
+    @Override
+    public void
+    getIMEI(Message result) {
+        sendIdentityRequest(RIL_REQUEST_GET_IMEI, null, result);
+    }
+
+    @Override
+    public void
+    getIMEISV(Message result) {
+        sendIdentityRequest(RIL_REQUEST_GET_IMEISV, null, result);
+    }
+
+    @Override
+    public void
+    getBasebandVersion(Message result) {
+        sendIdentityRequest(RIL_REQUEST_BASEBAND_VERSION, null, result);
+    }
+
+    @Override
+    public void
+    getDeviceIdentity(Message result) {
+        sendIdentityRequest(RIL_REQUEST_DEVICE_IDENTITY, null, result);
+    }
+
+    @Override
+    public void
+    getCDMASubscription(Message result) {
+        sendIdentityRequest(RIL_REQUEST_CDMA_SUBSCRIPTION, null, result);
+    }
+
+    @Override
+    public void
+    getIMSIForApp(String aid, Message result) {
+        sendIdentityRequest(RIL_REQUEST_GET_IMSI, aid, result);
+    }
+
+    @Override
+    public void
+    iccIOForApp(int command, int fileid, String path, int p1, int p2, int p3,
+            String data, String pin2, String aid, Message result) {
+        String key = SimIoCache.key(command, fileid, path, p1, p2, p3, aid);
+
+        if (key != null && sSimIo.answer(key, result)) {
+            if (RILJ_LOGD) riljLog("[cached]> iccIO: " + requestToString(RIL_REQUEST_SIM_IO)
+                    + " 0x" + Integer.toHexString(command) + " 0x" + Integer.toHexString(fileid)
+                    + " path: " + path + "," + p1 + "," + p2 + "," + p3 + " aid: " + aid);
+            return;
         }
+
+        RILRequest rr = RILRequest.obtain(RIL_REQUEST_SIM_IO, result);
+
+        rr.mParcel.writeInt(command);
+        rr.mParcel.writeInt(fileid);
+        rr.mParcel.writeString(path);
+        rr.mParcel.writeInt(p1);
+        rr.mParcel.writeInt(p2);
+        rr.mParcel.writeInt(p3);
+        rr.mParcel.writeString(data);
+        rr.mParcel.writeString(pin2);
+        rr.mParcel.writeString(aid);
+
+        if (RILJ_LOGD) riljLog(rr.serialString() + "> iccIO: " + requestToString(rr.mRequest)
+                + " 0x" + Integer.toHexString(command) + " 0x" + Integer.toHexString(fileid)
+                + " path: " + path + "," + p1 + "," + p2 + "," + p3 + " aid: " + aid);
+
+        sSimIo.onSend(rr.mSerial, command, fileid, key);
+        send(rr);
+    }
+
+    @Override
+    public void
+    sendSMS(String smscPDU, String pdu, Message result) {
+        mSmsWindow.submit(smscPDU, pdu, false, result);
+    }
+
+    @Override
+    public void
+    sendSMSExpectMore(String smscPDU, String pdu, Message result) {
+        mSmsWindow.submit(smscPDU, pdu, true, result);
+    }
+
+    @Override
+    public void
+    resetRadio(Message result) {
+        sIdentity.invalidateAll();
+        super.resetRadio(result);
+    }
+
+    // Answers from sIdentity when possible, otherwise sends the request and
+    // lets processSolicited store the response
+    private void
+    sendIdentityRequest(int request, String aid, Message result) {
+        if (sIdentity.answer(request, aid, result)) {
+            if (RILJ_LOGD) riljLog("[cached]> " + requestToString(request)
+                    + (aid != null ? " aid: " + aid : ""));
+            return;
+        }
+
+        RILRequest rr = RILRequest.obtain(request, result);
+
+        if (request == RIL_REQUEST_GET_IMSI) {
+            rr.mParcel.writeInt(1);
+            rr.mParcel.writeString(aid);
+        }
+
+        if (RILJ_LOGD) riljLog(rr.serialString() + "> " + requestToString(rr.mRequest)
+                + (aid != null ? " aid: " + aid : ""));
+
+        sIdentity.onSend(rr.mSerial, request, aid);
+        send(rr);
     }
 
     @Override
@@ -867,4 +1652,123 @@ public class SamsungRIL extends RIL implements CommandsInterface {
         response.sendToTarget();
         response = null;
     }
-}
\ No newline at end of file
+
+    /**
+     * A replayer decoding the responses of a RilCapture file with our
+     * decoders, taking sDecodeLock for one response at a time. Unsolicited
+     * responses go through handleUnsolicited and notify registrants, so
+     * decodeUnsolicited is only for a RIL of its own, like the host tool's.
+     */
+    RilCaptureReplayer
+    newCaptureReplayer(boolean decodeUnsolicited) {
+        RilCaptureReplayer.Decoder solicited = new RilCaptureReplayer.Decoder() {
+            @Override
+            public Object decode(int request, Parcel p) {
+                synchronized (sDecodeLock) {
+                    if (mSolicitedDecoders == null) {
+                        mSolicitedDecoders = createSolicitedDecoders();
+                    }
+                    ResponseDecoderTable.Decoder decoder = mSolicitedDecoders.get(request);
+                    if (decoder == null) {
+                        throw new RuntimeException("Unrecognized solicited response: " + request);
+                    }
+
+                    mReplaying = true;
+                    try {
+                        return decoder.decode(p);
+                    } finally {
+                        mReplaying = false;
+                    }
+                }
+            }
+        };
+        RilCaptureReplayer.Decoder unsolicited = new RilCaptureReplayer.Decoder() {
+            @Override
+            public Object decode(int response, Parcel p) {
+                synchronized (sDecodeLock) {
+                    handleUnsolicited(p);
+                }
+                return null;
+            }
+        };
+
+        return new RilCaptureReplayer(solicited, decodeUnsolicited ? unsolicited : null);
+    }
+
+    // Replays a capture on a thread of its own, a realtime replay can take
+    // as long as the capture did. The summary goes to the log.
+    private void
+    replayCapture(final String path, final boolean realtime) {
+        new Thread("SamsungRIL-replay") {
+            @Override
+            public void run() {
+                StringWriter out = new StringWriter();
+                PrintWriter pw = new PrintWriter(out);
+
+                try {
+                    RilCaptureReplayer replayer = newCaptureReplayer(false);
+                    long start = System.nanoTime();
+                    int records = new RilCaptureReader(path).replay(replayer, realtime);
+                    replayer.dump(pw, records, System.nanoTime() - start);
+                } catch (IOException e) {
+                    pw.println("Unable to replay " + path + ": " + e);
+                } catch (InterruptedException e) {
+                    pw.println("Replay of " + path + " interrupted");
+                }
+
+                pw.flush();
+                for (String line : out.toString().split("\n")) {
+                    riljLog(line);
+                }
+            }
+        }.start();
+    }
+
+    /**
+     * Instead of dumping the state:
+     * "dumpsys ... --replay-capture <file> [--realtime]" starts replaying a
+     * capture, with the summary in the log.
+     * "dumpsys ... --ril-trace <mask>" sets the RilTrace categories until
+     * the next boot, without restarting the phone process.
+     */
+    @Override
+    public void dump(FileDescriptor fd, PrintWriter pw, String[] args) {
+        if (args != null && args.length >= 2 && "--replay-capture".equals(args[0])) {
+            replayCapture(args[1], args.length > 2 && "--realtime".equals(args[2]));
+            pw.println("Replaying " + args[1] + ", see the RILJ log for the summary.");
+            return;
+        }
+        if (args != null && args.length >= 2 && "--ril-trace".equals(args[0])) {
+            try {
+                sTrace.setCategories(Integer.decode(args[1]));
+                pw.println("RilTrace categories set to " + args[1]);
+            } catch (NumberFormatException e) {
+                pw.println("Invalid RilTrace category mask: " + args[1]);
+            }
+            return;
+        }
+
+        super.dump(fd, pw, args);
+        pw.println("SamsungRIL:");
+        sTrace.dump(pw);
+        sLatency.dump(pw);
+        sCoalescer.dump(pw);
+        sIdentity.dump(pw);
+        sSimIo.dump(pw);
+        sParker.dump(pw);
+        if (mPipeline != null) mPipeline.dump(pw);
+        if (mScheduler != null) mScheduler.dump(pw);
+        mSmsWindow.dump(pw);
+        sProps.dump(pw);
+        sUnsolFilter.dump(pw);
+        mEmergencyNumbers.dump(pw);
+        sStringPool.dump(pw);
+        mSignalFilter.dump(pw);
+        mCallSnapshot.dump(pw);
+        mPppd.dump(pw);
+        mHsdpaTracker.dump(pw);
+        mAmDispatcher.dump(pw);
+        sEarlyEvents.dump(pw);
+        if (sCapture != null) sCapture.dump(pw);
+    }
+}
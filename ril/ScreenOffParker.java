@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import java.io.PrintWriter;
+
+/**
+ * Parks non-critical unsolicited responses while the screen is off.
+ *
+ * Signal strength, HSDPA state and NITZ updates keep arriving in standby
+ * and each one wakes up the framework. While the screen is off only the
+ * latest value of each is kept; they are flushed once when the screen
+ * comes back on. NITZ carries its own receive time, so a parked time
+ * update is still applied correctly.
+ *
+ * Turning the screen on and flushing happen under the parker lock, so an
+ * event that finds the screen on is always delivered after the flush.
+ */
+class ScreenOffParker {
+
+    interface Sink {
+        void onSignalStrength(int[] values);
+        void onHsdpaStateChanged(boolean hsdpa);
+        void onNitz(Object[] result);
+    }
+
+    private static final int SIGNAL_STRENGTH = 0;
+    private static final int HSDPA_STATE = 1;
+    private static final int NITZ = 2;
+    private static final String[] TYPE_NAMES = { "SIGNAL_STRENGTH", "HSDPA_STATE", "NITZ" };
+
+    private final boolean mEnabled;
+    private boolean mScreenOn = true;
+
+    private int mParked; // bit per type
+    private final int[] mSignal = new int[7];
+    private boolean mHsdpa;
+    private Object[] mNitz;
+
+    private final int[] mReceived = new int[TYPE_NAMES.length];
+    private final int[] mFlushed = new int[TYPE_NAMES.length];
+
+    ScreenOffParker(boolean enabled) {
+        mEnabled = enabled;
+    }
+
+    synchronized boolean
+    parkSignalStrength(int[] values) {
+        if (!park(SIGNAL_STRENGTH)) {
+            return false;
+        }
+        System.arraycopy(values, 0, mSignal, 0, mSignal.length);
+        return true;
+    }
+
+    synchronized boolean
+    parkHsdpaState(boolean hsdpa) {
+        if (!park(HSDPA_STATE)) {
+            return false;
+        }
+        mHsdpa = hsdpa;
+        return true;
+    }
+
+    synchronized boolean
+    parkNitz(Object[] result) {
+        if (!park(NITZ)) {
+            return false;
+        }
+        mNitz = result;
+        return true;
+    }
+
+    private boolean
+    park(int type) {
+        if (mScreenOn || !mEnabled) {
+            return false;
+        }
+        mParked |= 1 << type;
+        mReceived[type]++;
+        return true;
+    }
+
+    synchronized void
+    setScreenOn(boolean on, Sink sink) {
+        mScreenOn = on;
+        if (!on || mParked == 0) {
+            return;
+        }
+
+        if ((mParked & (1 << NITZ)) != 0) {
+            mFlushed[NITZ]++;
+            sink.onNitz(mNitz);
+            mNitz = null;
+        }
+        if ((mParked & (1 << HSDPA_STATE)) != 0) {
+            mFlushed[HSDPA_STATE]++;
+            sink.onHsdpaStateChanged(mHsdpa);
+        }
+        if ((mParked & (1 << SIGNAL_STRENGTH)) != 0) {
+            mFlushed[SIGNAL_STRENGTH]++;
+            sink.onSignalStrength(mSignal);
+        }
+        mParked = 0;
+    }
+
+    synchronized void
+    dump(PrintWriter pw) {
+        pw.println(" ScreenOffParker: enabled=" + mEnabled + " screenOn=" + mScreenOn);
+        for (int type = 0; type < TYPE_NAMES.length; type++) {
+            pw.println("  " + TYPE_NAMES[type] + ": parked=" + mReceived[type]
+                    + " flushed=" + mFlushed[type]
+                    + " avoided=" + (mReceived[type] - mFlushed[type]));
+        }
+    }
+}
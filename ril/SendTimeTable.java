@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+/**
+ * Request id and send time of the outstanding serials, indexed by serial
+ * modulo capacity.
+ *
+ * This is bookkeeping next to the base RIL's mRequestList, not a
+ * replacement for it: the RILRequests stay there, where the sender thread
+ * and clearRequestList() need them. RilLatencyStats and RequestScheduler
+ * only need to know what was sent when.
+ *
+ * Serials are handed out sequentially, so as long as fewer than CAPACITY
+ * requests are outstanding every serial has a slot of its own and insert,
+ * lookup and remove are a single array access. An entry still in its slot
+ * when the serial wraps around to it has been outstanding for CAPACITY
+ * newer requests; it is evicted and counted.
+ *
+ * Not thread safe, callers synchronize.
+ */
+class SendTimeTable {
+
+    interface Visitor {
+        void visit(int serial, int request, long sendTime);
+    }
+
+    static final int CAPACITY = 256; // must be a power of two
+    private static final int MASK = CAPACITY - 1;
+
+    private static final int EMPTY = -1; // request ids are never negative
+
+    private final int[] mSerial = new int[CAPACITY];
+    private final int[] mRequest = new int[CAPACITY];
+    private final long[] mSendTime = new long[CAPACITY];
+    private int mSize;
+    private int mEvicted;
+
+    SendTimeTable() {
+        clear();
+    }
+
+    /**
+     * @return the request id evicted from the slot, or -1
+     */
+    int
+    put(int serial, int request, long sendTime) {
+        int slot = serial & MASK;
+        int evicted = mRequest[slot];
+
+        if (evicted == EMPTY) {
+            mSize++;
+        } else {
+            mEvicted++;
+        }
+        mSerial[slot] = serial;
+        mRequest[slot] = request;
+        mSendTime[slot] = sendTime;
+        return evicted;
+    }
+
+    /**
+     * Returns the request id of serial, or -1 if it is not pending.
+     */
+    int
+    getRequest(int serial) {
+        int slot = serial & MASK;
+
+        if (mRequest[slot] == EMPTY || mSerial[slot] != serial) {
+            return -1;
+        }
+        return mRequest[slot];
+    }
+
+    /**
+     * Removes serial and returns its send time, or -1 if it is not pending.
+     */
+    long
+    remove(int serial) {
+        int slot = serial & MASK;
+
+        if (mRequest[slot] == EMPTY || mSerial[slot] != serial) {
+            return -1;
+        }
+        mRequest[slot] = EMPTY;
+        mSize--;
+        return mSendTime[slot];
+    }
+
+    /**
+     * Visits the requests sent before the given time, in slot order.
+     */
+    void
+    forEachOlderThan(long time, Visitor visitor) {
+        for (int slot = 0, left = mSize; slot < CAPACITY && left > 0; slot++) {
+            if (mRequest[slot] == EMPTY) {
+                continue;
+            }
+            left--;
+            if (mSendTime[slot] < time) {
+                visitor.visit(mSerial[slot], mRequest[slot], mSendTime[slot]);
+            }
+        }
+    }
+
+    void
+    clear() {
+        for (int slot = 0; slot < CAPACITY; slot++) {
+            mRequest[slot] = EMPTY;
+        }
+        mSize = 0;
+    }
+
+    int
+    size() {
+        return mSize;
+    }
+
+    int
+    getEvicted() {
+        return mEvicted;
+    }
+}
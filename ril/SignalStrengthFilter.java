@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import android.os.Handler;
+import android.os.SystemClock;
+import android.telephony.SignalStrength;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+/**
+ * Delivery policy for RIL_UNSOL_SIGNAL_STRENGTH.
+ *
+ * Decoded values are offered as a raw int[7]; a SignalStrength is only
+ * built when the values differ from the last delivered ones. Optionally
+ * updates that keep the bar level are dropped, and deliveries are capped
+ * to one per interval. A capped update is not lost: the latest value is
+ * delivered once the interval has elapsed.
+ */
+class SignalStrengthFilter {
+    // Policy flags
+    static final int DROP_DUPLICATES = 1 << 0;
+    static final int DROP_SAME_LEVEL = 1 << 1;
+
+    interface Callback {
+        void onSignalStrength(SignalStrength signalStrength);
+    }
+
+    private final Handler mHandler;
+    private final Callback mCallback;
+    private final boolean mIsGsm;
+    private final int mPolicy;
+    private final long mMinIntervalMs;
+
+    private final int[] mLast = new int[7];
+    private boolean mHaveLast;
+    private int mLastLevel;
+    private long mLastDeliveryTime;
+
+    private SignalStrength mPending;
+    private final int[] mPendingValues = new int[7];
+
+    private int mDelivered;
+    private int mDuplicates;
+    private int mSameLevel;
+    private int mDeferred;
+
+    private final Runnable mFlushPending = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (SignalStrengthFilter.this) {
+                if (mPending != null) {
+                    deliver(mPending, mPendingValues);
+                }
+            }
+        }
+    };
+
+    SignalStrengthFilter(Handler handler, Callback callback, boolean isGsm,
+            int policy, long minIntervalMs) {
+        mHandler = handler;
+        mCallback = callback;
+        mIsGsm = isGsm;
+        mPolicy = policy;
+        mMinIntervalMs = minIntervalMs;
+    }
+
+    synchronized void
+    offer(int[] values) {
+        if ((mPolicy & DROP_DUPLICATES) != 0 && mHaveLast && Arrays.equals(values, mLast)) {
+            // Back to what the framework already has, a deferred update is stale now
+            cancelPending();
+            mDuplicates++;
+            return;
+        }
+
+        SignalStrength signalStrength = new SignalStrength(values[0], values[1], values[2],
+                values[3], values[4], values[5], values[6], mIsGsm);
+
+        if ((mPolicy & DROP_SAME_LEVEL) != 0 && mHaveLast
+                && signalStrength.getLevel() == mLastLevel) {
+            cancelPending();
+            mSameLevel++;
+            return;
+        }
+
+        long now = SystemClock.uptimeMillis();
+        if (mHaveLast && mMinIntervalMs > 0 && now - mLastDeliveryTime < mMinIntervalMs) {
+            if (mPending == null) {
+                mHandler.postAtTime(mFlushPending, mLastDeliveryTime + mMinIntervalMs);
+            }
+            mPending = signalStrength;
+            System.arraycopy(values, 0, mPendingValues, 0, values.length);
+            mDeferred++;
+            return;
+        }
+
+        cancelPending();
+        deliver(signalStrength, values);
+    }
+
+    /**
+     * Forgets the last delivered value, the next offer is delivered as is.
+     * For when the receiving side no longer has it: radio off or a new
+     * registrant.
+     */
+    synchronized void
+    reset() {
+        cancelPending();
+        mHaveLast = false;
+    }
+
+    private void
+    deliver(SignalStrength signalStrength, int[] values) {
+        System.arraycopy(values, 0, mLast, 0, mLast.length);
+        mHaveLast = true;
+        mLastLevel = signalStrength.getLevel();
+        mLastDeliveryTime = SystemClock.uptimeMillis();
+        mPending = null;
+        mDelivered++;
+
+        mCallback.onSignalStrength(signalStrength);
+    }
+
+    private void
+    cancelPending() {
+        if (mPending != null) {
+            mHandler.removeCallbacks(mFlushPending);
+            mPending = null;
+        }
+    }
+
+    synchronized void
+    dump(PrintWriter pw) {
+        pw.println(" SignalStrengthFilter: policy=0x" + Integer.toHexString(mPolicy)
+                + " minIntervalMs=" + mMinIntervalMs
+                + " delivered=" + mDelivered
+                + " duplicates=" + mDuplicates
+                + " sameLevel=" + mSameLevel
+                + " deferred=" + mDeferred);
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import android.os.AsyncResult;
+import android.os.Message;
+import android.util.SparseArray;
+
+import com.android.internal.telephony.uicc.IccIoResult;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers SIM_IO reads of elementary files.
+ *
+ * The records and phonebook loaders read the same EFs (ADN, FDN, SMS,
+ * SPN, MSISDN, ...) again after every radio on and SIM status change.
+ * Successful READ_BINARY, READ_RECORD and GET_RESPONSE results are kept
+ * by (command, file id, path, p1, p2, p3, aid), least recently used first
+ * out once MAX_BYTES of payload is held. Files the modem updates on its
+ * own (location, ciphering keys, call meter) are never cached.
+ *
+ * An EF is forgotten when it is written through SIM_IO, when rild stores
+ * or deletes an SMS on the SIM (EF_SMS), and when a SIM refresh names it.
+ * Any other refresh, a SIM status change, the card leaving the PRESENT
+ * state, a different ICCID being read back, or the radio becoming
+ * unavailable drop everything. Responses to reads sent before an
+ * invalidation of their EF are not stored.
+ */
+class SimIoCache {
+
+    static final int COMMAND_READ_BINARY = 0xb0;
+    static final int COMMAND_UPDATE_BINARY = 0xd6;
+    static final int COMMAND_READ_RECORD = 0xb2;
+    static final int COMMAND_UPDATE_RECORD = 0xdc;
+    static final int COMMAND_GET_RESPONSE = 0xc0;
+
+    static final int EF_ICCID = 0x2fe2;
+    static final int EF_SMS = 0x6f3c;
+
+    // IccRefreshResponse.refreshResult
+    private static final int REFRESH_RESULT_FILE_UPDATE = 0;
+
+    private static final int MAX_BYTES = 64 * 1024;
+
+    // Kept up to date by the modem itself
+    private static final int[] VOLATILE_FILES = {
+        0x6f20, // EF_KC
+        0x6f52, // EF_KCGPRS
+        0x6f08, // EF_KEYS
+        0x6f09, // EF_KEYSPS
+        0x6f7e, // EF_LOCI
+        0x6f73, // EF_PSLOCI
+        0x6fe3, // EF_EPSLOCI
+        0x6fe4, // EF_EPSNSC
+        0x6f7b, // EF_FPLMN
+        0x6f39, // EF_ACM
+        0x6f43, // EF_SMSS
+        0x6f5b, // EF_START_HFN
+        0x6f5c, // EF_THRESHOLD
+        0x6fc4, // EF_NETPAR
+    };
+
+    private static class Pending {
+        final String mKey; // null for the ICCID read
+        final int mFileId;
+
+        Pending(String key, int fileId) {
+            mKey = key;
+            mFileId = fileId;
+        }
+    }
+
+    private final LinkedHashMap<String, IccIoResult> mEntries =
+            new LinkedHashMap<String, IccIoResult>(32, 0.75f, true);
+    private int mBytes;
+
+    // serial -> reads sent since the last invalidation of their EF
+    private final SparseArray<Pending> mPending = new SparseArray<Pending>();
+
+    // ICCID of the card the entries were read from
+    private byte[] mIccid;
+
+    private int mHits;
+    private int mMisses;
+    private long mBytesSaved;
+    private int mFileInvalidations;
+    private int mInvalidations;
+    private int mEvictions;
+
+    /**
+     * @return the cache key of a SIM_IO request, or null if its result is
+     * never cached
+     */
+    static String
+    key(int command, int fileId, String path, int p1, int p2, int p3, String aid) {
+        if (command != COMMAND_READ_BINARY && command != COMMAND_READ_RECORD
+                && command != COMMAND_GET_RESPONSE) {
+            return null;
+        }
+        if (fileId == EF_ICCID) {
+            return null;
+        }
+        for (int volatileFile : VOLATILE_FILES) {
+            if (fileId == volatileFile) {
+                return null;
+            }
+        }
+
+        return command + ":" + fileId + ":" + path + ":" + p1 + ":" + p2 + ":" + p3
+                + ":" + (aid == null ? "" : aid);
+    }
+
+    /**
+     * Answers result from the cache.
+     *
+     * @return false on a miss, the request then has to be sent
+     */
+    boolean
+    answer(String key, Message result) {
+        IccIoResult value;
+
+        synchronized (this) {
+            value = mEntries.get(key);
+            if (value == null) {
+                mMisses++;
+                return false;
+            }
+            mHits++;
+            mBytesSaved += value.payload != null ? value.payload.length : 0;
+        }
+
+        if (result != null) {
+            // Callers own their result
+            AsyncResult.forMessage(result, copy(value), null);
+            result.sendToTarget();
+        }
+        return true;
+    }
+
+    /**
+     * Called for every SIM_IO request sent, key as returned by key().
+     */
+    synchronized void
+    onSend(int serial, int command, int fileId, String key) {
+        if (command == COMMAND_UPDATE_BINARY || command == COMMAND_UPDATE_RECORD) {
+            invalidateFile(fileId);
+        } else if (command == COMMAND_READ_BINARY && fileId == EF_ICCID) {
+            mPending.put(serial, new Pending(null, fileId));
+        } else if (key != null) {
+            mPending.put(serial, new Pending(key, fileId));
+        }
+    }
+
+    /**
+     * Called for every SIM_IO response, ret is null on error.
+     */
+    synchronized void
+    onResponse(int serial, Object ret) {
+        int index = mPending.indexOfKey(serial);
+
+        if (index < 0) {
+            return;
+        }
+        Pending pending = mPending.valueAt(index);
+        mPending.removeAt(index);
+
+        if (!(ret instanceof IccIoResult) || !((IccIoResult) ret).success()) {
+            return;
+        }
+        IccIoResult result = (IccIoResult) ret;
+
+        if (pending.mKey == null) {
+            onIccid(result.payload);
+            return;
+        }
+
+        IccIoResult previous = mEntries.put(pending.mKey, copy(result));
+        mBytes += size(result) - (previous != null ? size(previous) : 0);
+        evict();
+    }
+
+    private void
+    onIccid(byte[] iccid) {
+        if (iccid == null || Arrays.equals(iccid, mIccid)) {
+            return;
+        }
+        if (mIccid != null || !mEntries.isEmpty()) {
+            invalidateAll();
+        }
+        mIccid = iccid.clone();
+    }
+
+    /**
+     * RIL_UNSOL_SIM_REFRESH, with the fields of IccRefreshResponse.
+     */
+    synchronized void
+    onRefresh(int refreshResult, int efId) {
+        if (refreshResult == REFRESH_RESULT_FILE_UPDATE && efId > 0) {
+            invalidateFile(efId);
+        } else {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * RIL_REQUEST_GET_SIM_STATUS answered.
+     */
+    synchronized void
+    onCardState(boolean present) {
+        if (!present && (mIccid != null || !mEntries.isEmpty())) {
+            invalidateAll();
+            mIccid = null;
+        }
+    }
+
+    /**
+     * Forgets everything read from fileId.
+     */
+    synchronized void
+    invalidateFile(int fileId) {
+        String infix = ":" + fileId + ":";
+
+        for (Iterator<Map.Entry<String, IccIoResult>> it = mEntries.entrySet().iterator();
+                it.hasNext(); ) {
+            Map.Entry<String, IccIoResult> e = it.next();
+            String key = e.getKey();
+
+            if (key.regionMatches(key.indexOf(':'), infix, 0, infix.length())) {
+                mBytes -= size(e.getValue());
+                it.remove();
+            }
+        }
+        for (int i = mPending.size() - 1; i >= 0; i--) {
+            if (mPending.valueAt(i).mFileId == fileId && mPending.valueAt(i).mKey != null) {
+                mPending.removeAt(i);
+            }
+        }
+        mFileInvalidations++;
+    }
+
+    /**
+     * Forgets every file, the card may have changed.
+     */
+    synchronized void
+    invalidateAll() {
+        mEntries.clear();
+        mBytes = 0;
+        for (int i = mPending.size() - 1; i >= 0; i--) {
+            if (mPending.valueAt(i).mKey != null) {
+                mPending.removeAt(i);
+            }
+        }
+        mInvalidations++;
+    }
+
+    private void
+    evict() {
+        Iterator<IccIoResult> it = mEntries.values().iterator();
+
+        while (mBytes > MAX_BYTES && it.hasNext()) {
+            mBytes -= size(it.next());
+            it.remove();
+            mEvictions++;
+        }
+    }
+
+    private static int
+    size(IccIoResult result) {
+        return result.payload != null ? result.payload.length : 0;
+    }
+
+    private static IccIoResult
+    copy(IccIoResult result) {
+        return new IccIoResult(result.sw1, result.sw2,
+                result.payload != null ? result.payload.clone() : null);
+    }
+
+    synchronized void
+    dump(PrintWriter pw) {
+        int lookups = mHits + mMisses;
+
+        pw.println(" SimIoCache: hits=" + mHits + " misses=" + mMisses
+                + " hitRatio=" + (lookups > 0 ? mHits * 100 / lookups : 0) + "%"
+                + " bytesSaved=" + mBytesSaved + " entries=" + mEntries.size()
+                + " bytes=" + mBytes + " evictions=" + mEvictions
+                + " fileInvalidations=" + mFileInvalidations
+                + " invalidations=" + mInvalidations);
+    }
+}
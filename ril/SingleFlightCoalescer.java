@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import android.os.AsyncResult;
+import android.os.Message;
+import android.os.SystemClock;
+import android.telephony.SignalStrength;
+import android.util.SparseArray;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+
+import static com.android.internal.telephony.RILConstants.*;
+
+/**
+ * Merges identical read-only queries while one is in flight.
+ *
+ * Only requests without parameters are considered, so two requests with
+ * the same id are the same query. The first one is sent and becomes the
+ * leader; callers asking again before it is answered are attached to it
+ * and get a copy of the same result. The modem serializes requests, so
+ * every duplicate would otherwise delay everything queued behind it.
+ *
+ * The framework polls again after a state change unsolicited and expects
+ * the answer to reflect that change. invalidate() is called for those, so
+ * a leader sent earlier is not joined any more; it still answers its own
+ * waiters and later polls are sent on their own.
+ */
+class SingleFlightCoalescer {
+
+    // A leader older than this is assumed lost and no longer joined
+    private static final long STALE_MS = 30000;
+
+    private static class Flight {
+        final int mSerial;
+        final long mSendTime;
+        final ArrayList<Message> mWaiters = new ArrayList<Message>();
+
+        Flight(int serial, long sendTime) {
+            mSerial = serial;
+            mSendTime = sendTime;
+        }
+    }
+
+    // request -> leader that may still be joined
+    private final SparseArray<Flight> mJoinable = new SparseArray<Flight>();
+    // serial -> every leader not answered yet
+    private final SparseArray<Flight> mFlights = new SparseArray<Flight>();
+    private final SparseArray<int[]> mCoalesced = new SparseArray<int[]>();
+    private int mLeaders;
+    private int mInvalidations;
+    private int mFailed;
+
+    static boolean
+    isCoalescible(int request) {
+        switch (request) {
+            case RIL_REQUEST_GET_CURRENT_CALLS:
+            case RIL_REQUEST_SIGNAL_STRENGTH:
+            case RIL_REQUEST_OPERATOR:
+            case RIL_REQUEST_VOICE_REGISTRATION_STATE:
+            case RIL_REQUEST_DATA_REGISTRATION_STATE:
+            case RIL_REQUEST_QUERY_NETWORK_SELECTION_MODE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return true if the unsolicited response makes the framework poll
+     * one of the coalescible requests again
+     */
+    static boolean
+    isPollTrigger(int response) {
+        switch (response) {
+            case RIL_UNSOL_RESPONSE_RADIO_STATE_CHANGED:
+            case RIL_UNSOL_RESPONSE_CALL_STATE_CHANGED:
+            case RIL_UNSOL_RESPONSE_VOICE_NETWORK_STATE_CHANGED:
+            case RIL_UNSOL_VOICE_RADIO_TECH_CHANGED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Called before a request is sent.
+     *
+     * @return true if the result message was attached to a request in
+     * flight, in which case the request must not be sent
+     */
+    synchronized boolean
+    join(int request, int serial, Message result) {
+        long now = SystemClock.elapsedRealtime();
+        Flight leader = mJoinable.get(request);
+
+        if (leader != null && now - leader.mSendTime < STALE_MS) {
+            if (result != null) {
+                leader.mWaiters.add(result);
+            }
+            int[] count = mCoalesced.get(request);
+            if (count == null) {
+                count = new int[1];
+                mCoalesced.put(request, count);
+            }
+            count[0]++;
+            return true;
+        }
+
+        Flight flight = new Flight(serial, now);
+        if (leader != null) {
+            // A stale leader hands its waiters over to the new one
+            flight.mWaiters.addAll(leader.mWaiters);
+            mFlights.remove(leader.mSerial);
+        }
+        mJoinable.put(request, flight);
+        mFlights.put(serial, flight);
+        mLeaders++;
+        return false;
+    }
+
+    /**
+     * Called when an unsolicited response the framework polls for arrives;
+     * nothing sent before it is joined any more.
+     */
+    synchronized void
+    invalidate() {
+        if (mJoinable.size() > 0) {
+            mJoinable.clear();
+            mInvalidations++;
+        }
+    }
+
+    /**
+     * Called when the response to serial arrives, or the request failed
+     * before reaching rild.
+     *
+     * @return the messages waiting for the same result, or null
+     */
+    synchronized ArrayList<Message>
+    complete(int request, int serial) {
+        Flight flight = mFlights.get(serial);
+
+        if (flight == null) {
+            return null;
+        }
+        mFlights.remove(serial);
+        if (mJoinable.get(request) == flight) {
+            mJoinable.remove(request);
+        }
+        return flight.mWaiters.isEmpty() ? null : flight.mWaiters;
+    }
+
+    /**
+     * Fails every waiter, the requests they wait for will not be answered.
+     */
+    void
+    failAll(Throwable tr) {
+        ArrayList<Message> waiters = new ArrayList<Message>();
+
+        synchronized (this) {
+            for (int i = 0; i < mFlights.size(); i++) {
+                waiters.addAll(mFlights.valueAt(i).mWaiters);
+            }
+            mFlights.clear();
+            mJoinable.clear();
+            mFailed += waiters.size();
+        }
+        notifyWaiters(waiters, null, tr);
+    }
+
+    static void
+    notifyWaiters(ArrayList<Message> waiters, Object ret, Throwable tr) {
+        if (waiters == null) {
+            return;
+        }
+        for (Message m : waiters) {
+            // Callers own their result
+            AsyncResult.forMessage(m, copy(ret), tr);
+            m.sendToTarget();
+        }
+    }
+
+    // Copies the results of the coalescible requests
+    private static Object
+    copy(Object ret) {
+        if (ret instanceof String[]) {
+            return ((String[]) ret).clone();
+        } else if (ret instanceof int[]) {
+            return ((int[]) ret).clone();
+        } else if (ret instanceof ArrayList) {
+            return new ArrayList<Object>((ArrayList<?>) ret);
+        } else if (ret instanceof SignalStrength) {
+            return new SignalStrength((SignalStrength) ret);
+        }
+        return ret;
+    }
+
+    synchronized void
+    dump(PrintWriter pw) {
+        pw.println(" SingleFlightCoalescer: inFlight=" + mFlights.size()
+                + " leaders=" + mLeaders + " invalidations=" + mInvalidations
+                + " failed=" + mFailed);
+        for (int i = 0; i < mCoalesced.size(); i++) {
+            pw.println("  " + SamsungRIL.requestToString(mCoalesced.keyAt(i))
+                    + ": coalesced=" + mCoalesced.valueAt(i)[0]);
+        }
+    }
+}
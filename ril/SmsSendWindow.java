@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import android.os.Handler;
+import android.os.Message;
+import android.os.SystemClock;
+import android.util.SparseArray;
+
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+
+import static com.android.internal.telephony.RILConstants.*;
+
+/**
+ * Sends GSM SMS segments in order with a bounded number outstanding.
+ *
+ * The SMS dispatcher hands over all segments of a multipart message at
+ * once. They are kept in order here and at most the window size is in
+ * rild at a time, so a long message does not queue up ahead of
+ * everything else. The SEND_SMS closing a message is only sent once
+ * every segment before it has been answered, so the relay link is never
+ * closed while one of them still has to be retried.
+ *
+ * GsmSMSDispatcher already retries SMS_SEND_FAIL_RETRY, so that error is
+ * passed on. Samsung's -1 without a usable payload reaches the dispatcher
+ * as a plain failure it does not retry; such a segment is sent once more
+ * here, ahead of the queued ones, after RETRY_DELAY_MS (with TP-RD set
+ * and the failed TP-MR, as the dispatcher would).
+ *
+ * A message is the run of SEND_SMS_EXPECT_MORE segments closed by a
+ * SEND_SMS. Its latency and throughput are kept for dump().
+ */
+class SmsSendWindow {
+
+    interface Sender {
+        /**
+         * @return false if the request was failed at once (no connection to rild)
+         */
+        boolean send(RILRequest rr);
+    }
+
+    private static final int MAX_RETRIES = 1;
+    private static final long RETRY_DELAY_MS = 1000;
+    private static final long STALE_MS = 60000;
+    private static final int HISTORY = 8;
+
+    private static class Stats {
+        long mStartTime;
+        long mEndTime;
+        int mSegments;
+        int mPending;
+        int mBytes;
+        int mRetries;
+        boolean mClosed;
+        boolean mFailed;
+    }
+
+    private static class Segment {
+        final String mSmsc;
+        String mPdu;
+        final boolean mExpectMore;
+        final Message mResult;
+        final Stats mStats;
+        int mRetries;
+        long mRetryTime;
+        long mSendTime;
+
+        Segment(String smsc, String pdu, boolean expectMore, Message result, Stats stats) {
+            mSmsc = smsc;
+            mPdu = pdu;
+            mExpectMore = expectMore;
+            mResult = result;
+            mStats = stats;
+        }
+    }
+
+    private final Sender mSender;
+    private final Handler mHandler;
+    private final int mWindow;
+
+    private final ArrayDeque<Segment> mQueue = new ArrayDeque<Segment>();
+    private final SparseArray<Segment> mOutstanding = new SparseArray<Segment>();
+    private Stats mOpen;
+
+    private final Stats[] mHistory = new Stats[HISTORY];
+    private int mMessages;
+    private int mSegments;
+    private int mRetries;
+    private int mFailures;
+    private int mReclaimed;
+
+    private final Runnable mDispatch = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (SmsSendWindow.this) {
+                dispatchQueued();
+            }
+        }
+    };
+
+    SmsSendWindow(Sender sender, Handler handler, int window) {
+        mSender = sender;
+        mHandler = handler;
+        mWindow = Math.max(1, window);
+    }
+
+    static boolean
+    isSegment(int request) {
+        return request == RIL_REQUEST_SEND_SMS || request == RIL_REQUEST_SEND_SMS_EXPECT_MORE;
+    }
+
+    synchronized void
+    submit(String smsc, String pdu, boolean expectMore, Message result) {
+        if (mOpen == null) {
+            mOpen = new Stats();
+            mOpen.mStartTime = SystemClock.elapsedRealtime();
+        }
+
+        Segment segment = new Segment(smsc, pdu, expectMore, result, mOpen);
+        mOpen.mSegments++;
+        mOpen.mPending++;
+        mOpen.mBytes += pdu != null ? pdu.length() / 2 : 0;
+        if (!expectMore) {
+            mOpen.mClosed = true;
+            mOpen = null;
+        }
+
+        mQueue.addLast(segment);
+        mSegments++;
+        dispatchQueued();
+    }
+
+    /**
+     * Called for every response to a segment.
+     *
+     * @return true if the segment will be sent again, the response must
+     * then not be delivered
+     */
+    synchronized boolean
+    onResponse(int serial, int error, Object ret) {
+        int index = mOutstanding.indexOfKey(serial);
+
+        if (index < 0) {
+            return false;
+        }
+        Segment segment = mOutstanding.valueAt(index);
+        mOutstanding.removeAt(index);
+
+        if (error == -1 && segment.mRetries < MAX_RETRIES) {
+            segment.mRetries++;
+            segment.mStats.mRetries++;
+            mRetries++;
+            segment.mPdu = markAsRetry(segment.mPdu,
+                    ret instanceof SmsResponse ? ((SmsResponse) ret).mMessageRef : -1);
+
+            // Goes out before anything queued behind it
+            segment.mRetryTime = SystemClock.elapsedRealtime() + RETRY_DELAY_MS;
+            mQueue.addFirst(segment);
+            dispatchQueued();
+            return true;
+        }
+
+        finish(segment, error != 0);
+        dispatchQueued();
+        return false;
+    }
+
+    /**
+     * Sends everything queued, nothing outstanding will be answered.
+     */
+    synchronized void
+    onRadioUnavailable() {
+        for (int i = 0; i < mOutstanding.size(); i++) {
+            finish(mOutstanding.valueAt(i), true);
+        }
+        mOutstanding.clear();
+        dispatchQueued();
+    }
+
+    private void
+    dispatchQueued() {
+        if (mOutstanding.size() >= mWindow) {
+            reclaimStale();
+        }
+
+        while (mOutstanding.size() < mWindow && !mQueue.isEmpty()) {
+            Segment segment = mQueue.peekFirst();
+            long wait = segment.mRetryTime - SystemClock.elapsedRealtime();
+
+            if (wait > 0) {
+                mHandler.removeCallbacks(mDispatch);
+                mHandler.postDelayed(mDispatch, wait);
+                return;
+            }
+            if (!segment.mExpectMore && segment.mStats.mPending > 1) {
+                // Earlier segments of its message are still unanswered
+                return;
+            }
+
+            mQueue.removeFirst();
+            RILRequest rr = RILRequest.obtain(segment.mExpectMore
+                    ? RIL_REQUEST_SEND_SMS_EXPECT_MORE : RIL_REQUEST_SEND_SMS, segment.mResult);
+
+            rr.mParcel.writeInt(2);
+            rr.mParcel.writeString(segment.mSmsc);
+            rr.mParcel.writeString(segment.mPdu);
+
+            segment.mSendTime = SystemClock.elapsedRealtime();
+            int serial = rr.mSerial;
+            if (mSender.send(rr)) {
+                mOutstanding.put(serial, segment);
+            } else {
+                finish(segment, true);
+            }
+        }
+    }
+
+    // Segments whose response was lost, their callers were failed by RIL
+    private void
+    reclaimStale() {
+        long now = SystemClock.elapsedRealtime();
+
+        for (int i = mOutstanding.size() - 1; i >= 0; i--) {
+            Segment segment = mOutstanding.valueAt(i);
+            if (now - segment.mSendTime >= STALE_MS) {
+                mOutstanding.removeAt(i);
+                finish(segment, true);
+                mReclaimed++;
+            }
+        }
+    }
+
+    private void
+    finish(Segment segment, boolean failed) {
+        Stats stats = segment.mStats;
+
+        if (failed) {
+            stats.mFailed = true;
+            mFailures++;
+        }
+        if (--stats.mPending == 0 && stats.mClosed) {
+            stats.mEndTime = SystemClock.elapsedRealtime();
+            mHistory[mMessages % HISTORY] = stats;
+            mMessages++;
+        }
+    }
+
+    // Per TS 23.040 9.2.3.6 a retried SMS-SUBMIT sets TP-RD and reuses the
+    // TP-MR of the failed attempt, as GsmSMSDispatcher does for its retries
+    private static String
+    markAsRetry(String pdu, int messageRef) {
+        if (pdu == null || pdu.length() < 4) {
+            return pdu;
+        }
+
+        int first = Integer.parseInt(pdu.substring(0, 2), 16);
+        if ((first & 0x03) != 0x01) {
+            return pdu;
+        }
+
+        StringBuilder sb = new StringBuilder(pdu);
+        setOctet(sb, 0, first | 0x04);
+        if (messageRef >= 0) {
+            setOctet(sb, 1, messageRef);
+        }
+        return sb.toString();
+    }
+
+    private static void
+    setOctet(StringBuilder hex, int index, int value) {
+        hex.setCharAt(index * 2, Character.toUpperCase(Character.forDigit((value >> 4) & 0xf, 16)));
+        hex.setCharAt(index * 2 + 1, Character.toUpperCase(Character.forDigit(value & 0xf, 16)));
+    }
+
+    synchronized void
+    dump(PrintWriter pw) {
+        pw.println(" SmsSendWindow: window=" + mWindow + " queued=" + mQueue.size()
+                + " outstanding=" + mOutstanding.size() + " messages=" + mMessages
+                + " segments=" + mSegments + " retries=" + mRetries
+                + " failures=" + mFailures + " reclaimed=" + mReclaimed);
+        for (int i = Math.max(0, mMessages - HISTORY); i < mMessages; i++) {
+            Stats stats = mHistory[i % HISTORY];
+            long ms = Math.max(1, stats.mEndTime - stats.mStartTime);
+
+            pw.println("  segments=" + stats.mSegments + " bytes=" + stats.mBytes
+                    + " retries=" + stats.mRetries + " failed=" + stats.mFailed
+                    + " latencyMs=" + ms
+                    + " segmentsPerSec=" + (stats.mSegments * 1000f / ms));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import java.io.PrintWriter;
+import java.lang.ref.WeakReference;
+
+/**
+ * Canonical instances for the strings of the registration and operator
+ * polls.
+ *
+ * Operator names, MCC/MNC, LAC and cell ids come back unchanged poll after
+ * poll and end up held by ServiceState and friends. The pool is a fixed
+ * size direct mapped table of weak references: a string equal to the one
+ * in its slot is replaced by that instance, anything else takes the slot.
+ * It never grows and never keeps a string alive by itself.
+ *
+ * Hex to decimal conversions of the CDMA base station fields go through a
+ * small cache of the same kind.
+ *
+ * Not thread safe, only used from the receiver thread.
+ */
+class StringPool {
+    private static final int POOL_SIZE = 128; // must be a power of two
+    private static final int HEX_CACHE_SIZE = 8; // must be a power of two
+
+    @SuppressWarnings("unchecked")
+    private final WeakReference<String>[] mPool = new WeakReference[POOL_SIZE];
+
+    private final String[] mHex = new String[HEX_CACHE_SIZE];
+    private final String[] mDecimal = new String[HEX_CACHE_SIZE];
+
+    private int mHits;
+    private int mMisses;
+    private int mHexHits;
+    private int mHexMisses;
+
+    String
+    canonicalize(String s) {
+        if (s == null) {
+            return null;
+        }
+
+        int slot = s.hashCode() & (POOL_SIZE - 1);
+        WeakReference<String> ref = mPool[slot];
+        String pooled = ref != null ? ref.get() : null;
+
+        if (s.equals(pooled)) {
+            mHits++;
+            return pooled;
+        }
+        mPool[slot] = new WeakReference<String>(s);
+        mMisses++;
+        return s;
+    }
+
+    void
+    canonicalize(String[] strings) {
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = canonicalize(strings[i]);
+        }
+    }
+
+    /**
+     * Same as Integer.toString(Integer.parseInt(hex, 16)), including the
+     * NumberFormatException.
+     */
+    String
+    hexToDecimal(String hex) {
+        int slot = hex.hashCode() & (HEX_CACHE_SIZE - 1);
+
+        if (hex.equals(mHex[slot])) {
+            mHexHits++;
+            return mDecimal[slot];
+        }
+
+        String decimal = canonicalize(Integer.toString(Integer.parseInt(hex, 16)));
+        mHex[slot] = hex;
+        mDecimal[slot] = decimal;
+        mHexMisses++;
+        return decimal;
+    }
+
+    void
+    dump(PrintWriter pw) {
+        pw.println(" StringPool: hits=" + mHits + " misses=" + mMisses
+                + " hexHits=" + mHexHits + " hexMisses=" + mHexMisses);
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import android.os.SystemClock;
+import android.telephony.Rlog;
+import android.util.SparseArray;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+
+/**
+ * Drops or rate limits unsolicited responses according to rules.
+ *
+ * Rules come from the built-in list followed by CONFIG_FILE, one per line:
+ *
+ *   <unsol id> [$<field>=<value> ...] drop | forward | limit <count>/<ms>
+ *
+ * The fields are whatever the caller decoded for that id (see SamsungRIL,
+ * none for the responses handed to the base class); a rule naming a field
+ * that is not there does not match. The first matching rule decides, an
+ * event no rule matches is forwarded. "limit" forwards at most count
+ * events per ms window and drops the rest.
+ *
+ * Rules are compiled into per id arrays when loaded, so filtering an event
+ * is a lookup and a few int compares.
+ */
+class UnsolicitedFilter {
+    private static final String LOG_TAG = "RILJ";
+
+    static final String CONFIG_FILE = "/system/etc/ril_unsol_filter.conf";
+
+    private static final int FORWARD = 0;
+    private static final int DROP = 1;
+    private static final int LIMIT = 2;
+
+    private static class Rule {
+        final String mSource;
+        final int[] mFields;
+        final int[] mValues;
+        final int mAction;
+        final int mLimit;
+        final long mWindowMs;
+
+        long mWindowStart;
+        int mWindowCount;
+        int mHits;
+        int mDropped;
+
+        Rule(String source, int[] fields, int[] values, int action, int limit, long windowMs) {
+            mSource = source;
+            mFields = fields;
+            mValues = values;
+            mAction = action;
+            mLimit = limit;
+            mWindowMs = windowMs;
+        }
+
+        boolean
+        matches(int[] fields, int fieldCount) {
+            for (int i = 0; i < mFields.length; i++) {
+                if (mFields[i] >= fieldCount || fields[mFields[i]] != mValues[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final SparseArray<Rule[]> mRules = new SparseArray<Rule[]>();
+    private int mRuleCount;
+    private int mErrors;
+
+    /**
+     * Compiles builtin and then the rules in path, if it exists.
+     */
+    UnsolicitedFilter(String[] builtin, String path) {
+        ArrayList<String> lines = new ArrayList<String>();
+
+        for (String line : builtin) {
+            lines.add(line);
+        }
+
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new FileReader(path));
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lines.add(line);
+            }
+        } catch (FileNotFoundException e) {
+            // Only the builtin rules
+        } catch (IOException e) {
+            Rlog.e(LOG_TAG, "Unable to read " + path, e);
+        } finally {
+            if (reader != null) {
+                try { reader.close(); } catch (IOException e) { }
+            }
+        }
+
+        SparseArray<ArrayList<Rule>> byId = new SparseArray<ArrayList<Rule>>();
+        for (String line : lines) {
+            compile(line, byId);
+        }
+        for (int i = 0; i < byId.size(); i++) {
+            ArrayList<Rule> rules = byId.valueAt(i);
+            mRules.put(byId.keyAt(i), rules.toArray(new Rule[rules.size()]));
+        }
+    }
+
+    private void
+    compile(String line, SparseArray<ArrayList<Rule>> byId) {
+        int comment = line.indexOf('#');
+        String source = (comment >= 0 ? line.substring(0, comment) : line).trim();
+
+        if (source.length() == 0) {
+            return;
+        }
+
+        try {
+            String[] tokens = source.split("\\s+");
+            int id = Integer.decode(tokens[0]);
+            int conditions = 0;
+
+            while (conditions + 1 < tokens.length && tokens[conditions + 1].startsWith("$")) {
+                conditions++;
+            }
+
+            int[] fields = new int[conditions];
+            int[] values = new int[conditions];
+            for (int i = 0; i < conditions; i++) {
+                String token = tokens[i + 1];
+                int eq = token.indexOf('=');
+
+                fields[i] = Integer.parseInt(token.substring(1, eq));
+                values[i] = Integer.decode(token.substring(eq + 1));
+                if (fields[i] < 0) {
+                    throw new IllegalArgumentException("negative field");
+                }
+            }
+
+            int next = conditions + 1;
+            String action = tokens[next];
+            int limit = 0;
+            long windowMs = 0;
+            int actionId;
+
+            if (action.equals("drop")) {
+                actionId = DROP;
+            } else if (action.equals("forward")) {
+                actionId = FORWARD;
+            } else if (action.equals("limit")) {
+                String[] rate = tokens[++next].split("/");
+                actionId = LIMIT;
+                limit = Integer.parseInt(rate[0]);
+                windowMs = Long.parseLong(rate[1]);
+            } else {
+                throw new IllegalArgumentException("unknown action " + action);
+            }
+            if (next != tokens.length - 1) {
+                throw new IllegalArgumentException("trailing tokens");
+            }
+
+            ArrayList<Rule> rules = byId.get(id);
+            if (rules == null) {
+                rules = new ArrayList<Rule>();
+                byId.put(id, rules);
+            }
+            rules.add(new Rule(source, fields, values, actionId, limit, windowMs));
+            mRuleCount++;
+        } catch (RuntimeException e) {
+            Rlog.e(LOG_TAG, "Ignoring unsolicited filter rule \"" + source + "\": " + e);
+            mErrors++;
+        }
+    }
+
+    /**
+     * @param fields the decoded fields of the event, fieldCount of them
+     * @return true if the event must not be delivered
+     */
+    synchronized boolean
+    drop(int response, int[] fields, int fieldCount) {
+        Rule[] rules = mRules.get(response);
+
+        if (rules == null) {
+            return false;
+        }
+
+        for (Rule rule : rules) {
+            if (!rule.matches(fields, fieldCount)) {
+                continue;
+            }
+            rule.mHits++;
+
+            boolean drop;
+            if (rule.mAction == LIMIT) {
+                long now = SystemClock.elapsedRealtime();
+
+                if (now - rule.mWindowStart >= rule.mWindowMs) {
+                    rule.mWindowStart = now;
+                    rule.mWindowCount = 0;
+                }
+                drop = ++rule.mWindowCount > rule.mLimit;
+            } else {
+                drop = rule.mAction == DROP;
+            }
+
+            if (drop) {
+                rule.mDropped++;
+            }
+            return drop;
+        }
+        return false;
+    }
+
+    synchronized void
+    dump(PrintWriter pw) {
+        pw.println(" UnsolicitedFilter: rules=" + mRuleCount + " errors=" + mErrors);
+        for (int i = 0; i < mRules.size(); i++) {
+            for (Rule rule : mRules.valueAt(i)) {
+                pw.println("  " + rule.mSource + ": hits=" + rule.mHits
+                        + " dropped=" + rule.mDropped);
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+#
+# Copyright (C) 2013 The CyanogenMod Project
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+#      http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+#
+
+LOCAL_PATH := $(call my-dir)
+
+# Host summary of a RIL capture, see ril/RilCapture.java. --decode runs
+# the responses through SamsungRIL, built against the stand-ins in
+# rilhost/stubs.
+# Usage: java -jar rilcapture.jar <capture> [--realtime] [--decode]
+
+include $(CLEAR_VARS)
+
+LOCAL_MODULE := rilcapture
+
+LOCAL_MODULE_TAGS := optional
+
+LOCAL_SRC_FILES := \
+	RilCaptureSummary.java \
+	$(call all-java-files-under, ../rilhost/stubs) \
+	$(addprefix ../ril/, $(notdir $(wildcard $(LOCAL_PATH)/../ril/*.java)))
+
+LOCAL_JAR_MANIFEST := manifest.txt
+
+include $(BUILD_HOST_JAVA_LIBRARY)
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import android.content.Context;
+
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Usage: rilcapture <capture> [--realtime] [--decode]
+ *
+ * Prints the number of requests, responses and unsolicited responses per
+ * id, solicited responses being matched to their request by serial.
+ *
+ * With --decode, solicited and unsolicited responses are decoded instead
+ * by a SamsungRIL of its own, built against the host stand-ins in
+ * rilhost/stubs, and the decode counts and times of RilCaptureReplayer
+ * are printed.
+ */
+public class RilCaptureSummary {
+
+    public static void
+    main(String[] args) throws Exception {
+        boolean realtime = false;
+        boolean decode = false;
+        String path = null;
+
+        for (String arg : args) {
+            if ("--realtime".equals(arg)) {
+                realtime = true;
+            } else if ("--decode".equals(arg)) {
+                decode = true;
+            } else {
+                path = arg;
+            }
+        }
+        if (path == null) {
+            System.err.println("usage: rilcapture <capture> [--realtime] [--decode]");
+            System.exit(1);
+        }
+
+        if (decode) {
+            decode(path, realtime);
+            System.exit(0);
+        }
+
+        final Map<Integer, Integer> serialToRequest = new HashMap<Integer, Integer>();
+        final Map<String, int[]> counts = new TreeMap<String, int[]>();
+        final long[] bytes = new long[1];
+
+        RilCaptureReader.Sink sink = new RilCaptureReader.Sink() {
+            @Override
+            public void onRecord(byte direction, long timeNanos, byte[] parcel) {
+                String key;
+
+                bytes[0] += parcel.length;
+                if (direction == RilCaptureFormat.REQUEST) {
+                    // request id, serial, ...
+                    serialToRequest.put(RilCaptureReader.readInt(parcel, 1),
+                            RilCaptureReader.readInt(parcel, 0));
+                    key = "request  " + RilCaptureReader.readInt(parcel, 0);
+                } else if (direction == RilCaptureFormat.SOLICITED) {
+                    // type, serial, error, ...
+                    Integer request = serialToRequest.remove(RilCaptureReader.readInt(parcel, 1));
+                    key = "response " + (request != null ? request : "unmatched")
+                            + (RilCaptureReader.readInt(parcel, 2) != 0 ? " error" : "");
+                } else {
+                    // type, id, ...
+                    key = "unsol    " + RilCaptureReader.readInt(parcel, 1);
+                }
+
+                int[] count = counts.get(key);
+                if (count == null) {
+                    count = new int[1];
+                    counts.put(key, count);
+                }
+                count[0]++;
+            }
+        };
+
+        long start = System.nanoTime();
+        int records = new RilCaptureReader(path).replay(sink, realtime);
+        long elapsed = Math.max(1, System.nanoTime() - start);
+
+        for (Map.Entry<String, int[]> e : counts.entrySet()) {
+            System.out.println(e.getKey() + ": " + e.getValue()[0]);
+        }
+        System.out.println(records + " records, " + bytes[0] + " bytes in "
+                + (elapsed / 1000000) + " ms ("
+                + (records * 1000000000L / elapsed) + " records/s)");
+    }
+
+    private static void
+    decode(String path, boolean realtime) throws Exception {
+        SamsungRIL ril = new SamsungRIL(new Context(), Phone.NT_MODE_WCDMA_PREF, 0);
+        RilCaptureReplayer replayer = ril.newCaptureReplayer(true);
+        PrintWriter pw = new PrintWriter(System.out);
+
+        long start = System.nanoTime();
+        int records = new RilCaptureReader(path).replay(replayer, realtime);
+        replayer.dump(pw, records, System.nanoTime() - start);
+        pw.flush();
+    }
+}
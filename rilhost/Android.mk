@@ -0,0 +1,60 @@
+#
+# Copyright (C) 2013 The CyanogenMod Project
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+#      http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+#
+
+LOCAL_PATH := $(call my-dir)
+
+# SamsungRIL on the host JVM: ril/ built against the stand-ins in stubs/
+# for the framework classes it uses (Parcel, SystemProperties, Handler,
+# the RIL base class, ...).
+rilhost_src_files := \
+	$(call all-java-files-under, stubs) \
+	$(addprefix ../ril/, $(notdir $(wildcard $(LOCAL_PATH)/../ril/*.java)))
+
+# Receive path benchmarks over the fixtures in res/fixtures.
+# Usage: java -jar rilbench.jar [-w warmups] [-i iterations] [-t ms] [filter]
+
+include $(CLEAR_VARS)
+
+LOCAL_MODULE := rilbench
+
+LOCAL_MODULE_TAGS := optional
+
+LOCAL_SRC_FILES := \
+	$(rilhost_src_files) \
+	$(call all-java-files-under, bench)
+
+LOCAL_JAVA_RESOURCE_DIRS := res
+
+LOCAL_JAR_MANIFEST := bench/manifest.txt
+
+include $(BUILD_HOST_JAVA_LIBRARY)
+
+# Host tests for the parts of ril/ that do not need a modem.
+# Usage: java -cp riltests.jar:junit.jar junit.textui.TestRunner <class>
+
+include $(CLEAR_VARS)
+
+LOCAL_MODULE := riltests
+
+LOCAL_MODULE_TAGS := tests
+
+LOCAL_SRC_FILES := \
+	$(rilhost_src_files) \
+	$(call all-java-files-under, tests)
+
+LOCAL_JAVA_LIBRARIES := junit
+
+include $(BUILD_HOST_JAVA_LIBRARY)
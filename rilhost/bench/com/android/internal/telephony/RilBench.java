@@ -0,0 +1,476 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import static com.android.internal.telephony.RILConstants.*;
+
+import android.content.Context;
+import android.os.Parcel;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+/**
+ * Usage: rilbench [-w warmups] [-i iterations] [-t ms] [filter]
+ *
+ * Host benchmarks of the SamsungRIL receive path over the fixtures in
+ * res/fixtures, see RilBenchFixtures. Every benchmark runs warmup and
+ * measured iterations of a fixed time and reports operations per second
+ * and the bytes allocated by the benchmark thread, per operation and per
+ * second. Allocations on the RIL worker thread are not included.
+ *
+ * JMH is not part of the platform tree, so this is a small harness in the
+ * same spirit: per batch setup kept out of the measurement, results fed
+ * to a sink so the JIT cannot drop them.
+ */
+public class RilBench {
+
+    // Operations between two clock reads
+    private static final int BATCH = 64;
+
+    static class Record {
+        final byte mDirection;
+        final byte[] mParcel;
+
+        Record(byte direction, byte[] parcel) {
+            mDirection = direction;
+            mParcel = parcel;
+        }
+
+        int
+        readInt(int index) {
+            return RilCaptureReader.readInt(mParcel, index);
+        }
+    }
+
+    abstract static class Benchmark {
+        final String mName;
+
+        Benchmark(String name) {
+            mName = name;
+        }
+
+        /** Untimed, readies the next count operations. */
+        void prepare(int count) { }
+
+        /** Runs count operations. */
+        abstract void run(int count);
+    }
+
+    // Keeps decoded results alive
+    static volatile Object sSink;
+
+    private static SamsungRIL sRil;
+
+    public static void
+    main(String[] args) throws Exception {
+        int warmups = 5;
+        int iterations = 5;
+        long iterationMs = 500;
+        String filter = null;
+
+        for (int i = 0; i < args.length; i++) {
+            if ("-w".equals(args[i]) && i + 1 < args.length) {
+                warmups = Integer.parseInt(args[++i]);
+            } else if ("-i".equals(args[i]) && i + 1 < args.length) {
+                iterations = Integer.parseInt(args[++i]);
+            } else if ("-t".equals(args[i]) && i + 1 < args.length) {
+                iterationMs = Long.parseLong(args[++i]);
+            } else {
+                filter = args[i];
+            }
+        }
+
+        sRil = new SamsungRIL(new Context(), Phone.NT_MODE_WCDMA_PREF, 0);
+
+        ArrayList<Benchmark> benchmarks = new ArrayList<Benchmark>();
+        addBenchmarks(benchmarks);
+
+        System.out.println(String.format("%-36s %14s %10s %10s %10s",
+                "benchmark", "ops/s", "error", "B/op", "MB/s"));
+        for (Benchmark b : benchmarks) {
+            if (filter != null && !b.mName.contains(filter)) {
+                continue;
+            }
+            measure(b, warmups, iterations, iterationMs * 1000000L);
+        }
+        System.exit(0);
+    }
+
+    private static void
+    addBenchmarks(ArrayList<Benchmark> benchmarks) throws IOException {
+        ArrayList<Record> calls = load("call_list.rlc");
+        ArrayList<Record> signal = load("signal_strength.rlc");
+        ArrayList<Record> nitz = load("nitz.rlc");
+        ArrayList<Record> infoRecs = load("cdma_info_rec.rlc");
+        ArrayList<Record> setup = load("setup_data_call.rlc");
+
+        for (int outstanding : new int[] { 1, 16, 128 }) {
+            benchmarks.add(new PendingRequestsBenchmark<SparseArray<RILRequest>>(
+                    "pendingRequests/SparseArray", new SparseArray<RILRequest>(), outstanding) {
+                @Override
+                RILRequest
+                remove(SparseArray<RILRequest> list, int serial) {
+                    RILRequest rr = list.get(serial);
+                    if (rr != null) {
+                        list.remove(serial);
+                    }
+                    return rr;
+                }
+            });
+            benchmarks.add(new PendingRequestsBenchmark<PendingRequestList>(
+                    "pendingRequests/PendingRequestList", new PendingRequestList(), outstanding) {
+                @Override
+                RILRequest
+                remove(PendingRequestList list, int serial) {
+                    return list.take(serial);
+                }
+            });
+        }
+
+        benchmarks.add(new SolicitedBenchmark("processSolicited/callList", calls));
+        benchmarks.add(new SolicitedBenchmark("processSolicited/signalStrength", signal));
+        benchmarks.add(new SolicitedBenchmark("processSolicited/setupDataCall", setup));
+
+        benchmarks.add(new UnsolicitedBenchmark("processUnsolicited/signalStrength", signal));
+        benchmarks.add(new UnsolicitedBenchmark("processUnsolicited/nitz", nitz));
+        benchmarks.add(new UnsolicitedBenchmark("processUnsolicited/cdmaInfoRec", infoRecs));
+
+        for (int n = 1; n <= 7; n++) {
+            ArrayList<Record> polls = new ArrayList<Record>();
+            for (Record r : calls) {
+                if (r.mDirection == RilCaptureFormat.SOLICITED && r.readInt(3) == n) {
+                    polls.add(r);
+                }
+            }
+            benchmarks.add(new DecoderBenchmark("responseCallList/" + n + "calls", polls) {
+                @Override
+                Object decode(Parcel p) { return sRil.responseCallList(p); }
+            });
+        }
+
+        benchmarks.add(new DecoderBenchmark("responseSignalStrength",
+                responses(signal, RIL_REQUEST_SIGNAL_STRENGTH)) {
+            @Override
+            Object decode(Parcel p) { return sRil.responseSignalStrength(p); }
+        });
+        benchmarks.add(new DecoderBenchmark("responseSetupDataCall",
+                responses(setup, RIL_REQUEST_SETUP_DATA_CALL)) {
+            @Override
+            Object decode(Parcel p) { return sRil.responseSetupDataCall(p); }
+        });
+    }
+
+    /**
+     * The pending request bookkeeping of one request with a number of
+     * others outstanding: the sender appends it, then the receiver takes
+     * the oldest one off the list, the SparseArray the way the base class
+     * does and PendingRequestList the way SamsungRIL does.
+     */
+    abstract static class PendingRequestsBenchmark<T extends SparseArray<RILRequest>>
+            extends Benchmark {
+        private final T mList;
+        private final RILRequest[] mRequests;
+        private int mNext;
+        private int mNextSerial;
+
+        PendingRequestsBenchmark(String name, T list, int outstanding) {
+            super(name + "/" + outstanding);
+
+            mList = list;
+            mRequests = new RILRequest[outstanding + 1];
+            for (int i = 0; i < mRequests.length; i++) {
+                mRequests[i] = new RILRequest();
+            }
+            for (int i = 0; i < outstanding; i++) {
+                append();
+            }
+        }
+
+        private void
+        append() {
+            RILRequest rr = mRequests[mNext];
+
+            mNext = mNext + 1 < mRequests.length ? mNext + 1 : 0;
+            rr.mSerial = mNextSerial++;
+            synchronized (mList) {
+                mList.append(rr.mSerial, rr);
+            }
+        }
+
+        @Override
+        void
+        run(int count) {
+            RILRequest rr = null;
+            for (int i = 0; i < count; i++) {
+                append();
+
+                int serial = mNextSerial - mRequests.length;
+                synchronized (mList) {
+                    rr = remove(mList, serial);
+                }
+            }
+            sSink = rr;
+        }
+
+        /** Removes and returns the request of serial, called locked. */
+        abstract RILRequest remove(T list, int serial);
+    }
+
+    /**
+     * Solicited responses through processResponse, as the receiver thread
+     * hands them over. prepare() registers a pending request for each the
+     * way the base class sender does once the request is written.
+     */
+    static class SolicitedBenchmark extends Benchmark {
+        private final Record[] mResponses;
+        private final int[] mRequests;
+        private final Parcel[] mParcels = new Parcel[BATCH];
+        private int mNext;
+
+        SolicitedBenchmark(String name, ArrayList<Record> records) {
+            super(name);
+
+            SparseIntArray serialToRequest = new SparseIntArray();
+            ArrayList<Record> responses = new ArrayList<Record>();
+            ArrayList<Integer> requests = new ArrayList<Integer>();
+            for (Record r : records) {
+                if (r.mDirection == RilCaptureFormat.REQUEST) {
+                    serialToRequest.put(r.readInt(1), r.readInt(0));
+                } else if (r.mDirection == RilCaptureFormat.SOLICITED) {
+                    responses.add(r);
+                    requests.add(serialToRequest.get(r.readInt(1)));
+                }
+            }
+            mResponses = responses.toArray(new Record[responses.size()]);
+            mRequests = new int[requests.size()];
+            for (int i = 0; i < mRequests.length; i++) {
+                mRequests[i] = requests.get(i);
+            }
+            for (int i = 0; i < BATCH; i++) {
+                mParcels[i] = Parcel.obtain();
+            }
+        }
+
+        @Override
+        void
+        prepare(int count) {
+            for (int i = 0; i < count; i++) {
+                int index = (mNext + i) % mResponses.length;
+                byte[] data = mResponses[index].mParcel;
+                RILRequest rr = RILRequest.obtain(mRequests[index], null);
+
+                rr.mParcel.recycle();
+                rr.mParcel = null;
+                synchronized (sRil.mRequestList) {
+                    sRil.mRequestList.append(rr.mSerial, rr);
+                }
+                sRil.acquireWakeLock();
+
+                Parcel p = mParcels[i];
+                p.unmarshall(data, 0, data.length);
+                p.setDataPosition(4);
+                p.writeInt(rr.mSerial);
+                p.setDataPosition(0);
+            }
+        }
+
+        @Override
+        void
+        run(int count) {
+            for (int i = 0; i < count; i++) {
+                sRil.processResponse(mParcels[i]);
+            }
+            mNext = (mNext + count) % mResponses.length;
+        }
+    }
+
+    /** Unsolicited responses through processResponse. */
+    static class UnsolicitedBenchmark extends Benchmark {
+        private final Parcel[] mParcels;
+        private int mNext;
+
+        UnsolicitedBenchmark(String name, ArrayList<Record> records) {
+            super(name);
+
+            ArrayList<Parcel> parcels = new ArrayList<Parcel>();
+            for (Record r : records) {
+                if (r.mDirection == RilCaptureFormat.UNSOLICITED) {
+                    parcels.add(toParcel(r));
+                }
+            }
+            mParcels = parcels.toArray(new Parcel[parcels.size()]);
+        }
+
+        @Override
+        void
+        run(int count) {
+            for (int i = 0; i < count; i++) {
+                Parcel p = mParcels[mNext];
+                p.setDataPosition(0);
+                sRil.processResponse(p);
+                mNext = (mNext + 1) % mParcels.length;
+            }
+        }
+    }
+
+    /** A response decoder alone, over the payload of solicited responses. */
+    abstract static class DecoderBenchmark extends Benchmark {
+        private final Parcel[] mParcels;
+        private int mNext;
+
+        DecoderBenchmark(String name, ArrayList<Record> records) {
+            super(name);
+
+            mParcels = new Parcel[records.size()];
+            for (int i = 0; i < mParcels.length; i++) {
+                mParcels[i] = toParcel(records.get(i));
+            }
+        }
+
+        abstract Object decode(Parcel p);
+
+        @Override
+        void
+        run(int count) {
+            Object ret = null;
+            for (int i = 0; i < count; i++) {
+                Parcel p = mParcels[mNext];
+                p.setDataPosition(12); // type, serial, error
+                ret = decode(p);
+                mNext = (mNext + 1) % mParcels.length;
+            }
+            sSink = ret;
+        }
+    }
+
+    private static void
+    measure(Benchmark b, int warmups, int iterations, long iterationNanos) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        double[] opsPerSec = new double[iterations];
+        double bytesPerOp = 0;
+        double bytesPerSec = 0;
+
+        for (int iteration = -warmups; iteration < iterations; iteration++) {
+            long ops = 0;
+            long nanos = 0;
+            long bytes = 0;
+
+            while (nanos < iterationNanos) {
+                b.prepare(BATCH);
+
+                long allocated = threads.getThreadAllocatedBytes(thread);
+                long start = System.nanoTime();
+                b.run(BATCH);
+                nanos += System.nanoTime() - start;
+                bytes += threads.getThreadAllocatedBytes(thread) - allocated;
+                ops += BATCH;
+            }
+
+            if (iteration >= 0) {
+                opsPerSec[iteration] = ops * 1e9 / nanos;
+                bytesPerOp += (double) bytes / ops / iterations;
+                bytesPerSec += bytes * 1e9 / nanos / iterations;
+            }
+        }
+
+        double mean = 0;
+        for (double v : opsPerSec) {
+            mean += v / iterations;
+        }
+        double variance = 0;
+        for (double v : opsPerSec) {
+            variance += (v - mean) * (v - mean) / Math.max(1, iterations - 1);
+        }
+
+        System.out.println(String.format("%-36s %14.0f %10.0f %10.1f %10.2f",
+                b.mName, mean, Math.sqrt(variance), bytesPerOp, bytesPerSec / (1024 * 1024)));
+    }
+
+    // Solicited responses to request, matched by serial
+    private static ArrayList<Record>
+    responses(ArrayList<Record> records, int request) {
+        ArrayList<Record> ret = new ArrayList<Record>();
+        SparseIntArray serialToRequest = new SparseIntArray();
+
+        for (Record r : records) {
+            if (r.mDirection == RilCaptureFormat.REQUEST) {
+                serialToRequest.put(r.readInt(1), r.readInt(0));
+            } else if (r.mDirection == RilCaptureFormat.SOLICITED
+                    && serialToRequest.get(r.readInt(1)) == request) {
+                ret.add(r);
+            }
+        }
+        return ret;
+    }
+
+    private static Parcel
+    toParcel(Record r) {
+        Parcel p = Parcel.obtain();
+        p.unmarshall(r.mParcel, 0, r.mParcel.length);
+        return p;
+    }
+
+    /**
+     * Reads a fixture with RilCaptureReader. The fixtures are jar
+     * resources and the reader maps files, so they go through a
+     * temporary file.
+     */
+    static ArrayList<Record>
+    load(String name) throws IOException {
+        InputStream in = RilBench.class.getResourceAsStream("/fixtures/" + name);
+        if (in == null) {
+            throw new IOException("Missing fixture " + name);
+        }
+
+        File file = File.createTempFile("rilbench", ".rlc");
+        try {
+            FileOutputStream out = new FileOutputStream(file);
+            try {
+                byte[] buffer = new byte[8192];
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    out.write(buffer, 0, n);
+                }
+            } finally {
+                out.close();
+                in.close();
+            }
+
+            final ArrayList<Record> records = new ArrayList<Record>();
+            new RilCaptureReader(file.getPath()).replay(new RilCaptureReader.Sink() {
+                @Override
+                public void onRecord(byte direction, long timeNanos, byte[] parcel) {
+                    records.add(new Record(direction, parcel));
+                }
+            }, false);
+            return records;
+        } catch (InterruptedException e) {
+            throw new IOException(e.toString());
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import static com.android.internal.telephony.RILConstants.*;
+
+import android.os.Parcel;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Usage: RilBenchFixtures <dir>
+ *
+ * Writes the RilBench fixtures in the RilCapture format. They are built
+ * from the wire layouts rild uses on this device rather than taken from a
+ * live capture, with fixed seeds so the files only change when this does.
+ * A capture pulled from a device (persist.ril.capture) can replace any of
+ * them as long as it keeps the records the benchmark looks for.
+ */
+public class RilBenchFixtures {
+    // Samsung id, see SamsungRIL
+    private static final int RIL_UNSOL_HSDPA_STATE_CHANGED = 11016;
+
+    private final ArrayList<byte[]> mRecords = new ArrayList<byte[]>();
+    private long mTime = 1000000000L;
+    private int mSerial = 1;
+
+    public static void
+    main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: RilBenchFixtures <dir>");
+            System.exit(1);
+        }
+
+        File dir = new File(args[0]);
+        callList().write(new File(dir, "call_list.rlc"));
+        signalStrength().write(new File(dir, "signal_strength.rlc"));
+        nitz().write(new File(dir, "nitz.rlc"));
+        cdmaInfoRec().write(new File(dir, "cdma_info_rec.rlc"));
+        setupDataCall().write(new File(dir, "setup_data_call.rlc"));
+    }
+
+    /**
+     * GET_CURRENT_CALLS polls with 1 to 7 calls, 8 polls each. Every other
+     * poll flips the first call between active and held, so both the
+     * unchanged and the changed path of the call snapshot are taken.
+     */
+    static RilBenchFixtures
+    callList() {
+        RilBenchFixtures f = new RilBenchFixtures();
+
+        for (int calls = 1; calls <= 7; calls++) {
+            for (int poll = 0; poll < 8; poll++) {
+                int serial = f.request(RIL_REQUEST_GET_CURRENT_CALLS, 0);
+
+                Parcel p = f.solicited(serial, 0);
+                p.writeInt(calls);
+                for (int i = 0; i < calls; i++) {
+                    boolean held = i > 0 || (poll & 1) != 0;
+                    p.writeInt(held ? 1 : 0);           // state
+                    p.writeInt(i + 1);                  // index
+                    p.writeInt(i % 2 == 0 ? 0x91 : 0x81); // toa
+                    p.writeInt(calls > 2 && i < 2 ? 1 : 0); // isMpty
+                    p.writeInt(i % 3 == 1 ? 1 : 0);     // isMT
+                    p.writeInt(0);                      // als
+                    p.writeInt(1);                      // isVoice
+                    p.writeInt(0);                      // isVideo
+                    p.writeInt(0);                      // isVoicePrivacy
+                    p.writeString("1555010" + (1000 + i * 37));
+                    p.writeInt(0);                      // numberPresentation
+                    p.writeString(i % 2 == 0 ? null : "Caller " + i);
+                    p.writeInt(0);                      // namePresentation
+                    p.writeInt(0);                      // uusInfoPresent
+                }
+                f.add(RilCaptureFormat.SOLICITED, p, 150000000L);
+            }
+        }
+        return f;
+    }
+
+    /**
+     * Bursts of RIL_UNSOL_SIGNAL_STRENGTH in the Samsung GSM layout, bar
+     * count in the second byte, with repeats like the baseband sends while
+     * idle, and RIL_REQUEST_SIGNAL_STRENGTH polls in between.
+     */
+    static RilBenchFixtures
+    signalStrength() {
+        RilBenchFixtures f = new RilBenchFixtures();
+        Random random = new Random(9);
+        int asu = 16;
+
+        for (int burst = 0; burst < 8; burst++) {
+            for (int i = 0; i < 16; i++) {
+                if (random.nextInt(3) == 0) {
+                    asu = Math.max(2, Math.min(31, asu + random.nextInt(5) - 2));
+                }
+                Parcel p = f.unsolicited(RIL_UNSOL_SIGNAL_STRENGTH);
+                writeSignalStrength(p, asu);
+                f.add(RilCaptureFormat.UNSOLICITED, p, 20000000L);
+            }
+
+            for (int i = 0; i < 2; i++) {
+                int serial = f.request(RIL_REQUEST_SIGNAL_STRENGTH, 0);
+                Parcel p = f.solicited(serial, 0);
+                p.writeInt(7);
+                writeSignalStrength(p, asu);
+                f.add(RilCaptureFormat.SOLICITED, p, 30000000L);
+            }
+            f.mTime += 2000000000L;
+        }
+        return f;
+    }
+
+    private static void
+    writeSignalStrength(Parcel p, int asu) {
+        int bars = asu >= 12 ? 4 : asu >= 8 ? 3 : asu >= 5 ? 2 : 1;
+
+        p.writeInt(bars << 8 | asu);
+        p.writeInt(99);     // bit error rate
+        p.writeInt(-1);     // cdma dbm
+        p.writeInt(-1);     // cdma ecio
+        p.writeInt(-1);     // evdo dbm
+        p.writeInt(-1);     // evdo ecio
+        p.writeInt(-1);     // evdo snr
+    }
+
+    /**
+     * RIL_UNSOL_NITZ_TIME_RECEIVED in the Samsung layout, with the extra
+     * trailing field, and the AOSP layout with and without the DST field.
+     */
+    static RilBenchFixtures
+    nitz() {
+        RilBenchFixtures f = new RilBenchFixtures();
+        String[] zones = { "+08", "-20", "+00", "+36" };
+
+        for (int i = 0; i < 24; i++) {
+            String time = String.format("13/%02d/%02d,%02d:%02d:%02d%s",
+                    1 + i % 12, 1 + i, i % 24, (i * 7) % 60, (i * 13) % 60, zones[i % 4]);
+            String nitz;
+            switch (i % 3) {
+                case 0: nitz = time + ",00,49"; break;  // Samsung
+                case 1: nitz = time + ",01"; break;     // AOSP
+                default: nitz = time; break;            // AOSP, no DST
+            }
+
+            Parcel p = f.unsolicited(RIL_UNSOL_NITZ_TIME_RECEIVED);
+            p.writeString(nitz);
+            p.writeLong(f.mTime / 1000000L);
+            f.add(RilCaptureFormat.UNSOLICITED, p, 60000000000L);
+        }
+        return f;
+    }
+
+    /**
+     * RIL_UNSOL_CDMA_INFO_REC with the records a CDMA call brings: signal
+     * info (including the IS-54B long tone the filter drops), display and
+     * calling party number.
+     */
+    static RilBenchFixtures
+    cdmaInfoRec() {
+        RilBenchFixtures f = new RilBenchFixtures();
+
+        for (int i = 0; i < 24; i++) {
+            Parcel p = f.unsolicited(RIL_UNSOL_CDMA_INFO_REC);
+            int records = 1 + i % 3;
+
+            p.writeInt(records);
+
+            p.writeInt(4);                      // RIL_CDMA_SIGNAL_INFO_REC
+            p.writeInt(1);                      // isPresent
+            p.writeInt(i % 2 == 0 ? 2 : 0);     // signalType, IS-54B or tone
+            p.writeInt(0);                      // alertPitch
+            p.writeInt(i % 4 == 0 ? 1 : 4);     // signal
+
+            if (records > 1) {
+                p.writeInt(0);                  // RIL_CDMA_DISPLAY_INFO_REC
+                p.writeString("CALLER " + i);
+            }
+            if (records > 2) {
+                p.writeInt(2);                  // RIL_CDMA_CALLING_PARTY_NUMBER_INFO_REC
+                p.writeString("555010" + (1000 + i));
+                p.writeInt(2);                  // numberType
+                p.writeInt(1);                  // numberPlan
+                p.writeInt(0);                  // pi
+                p.writeInt(0);                  // si
+            }
+            f.add(RilCaptureFormat.UNSOLICITED, p, 500000000L);
+        }
+        return f;
+    }
+
+    /**
+     * SETUP_DATA_CALL requests and the Samsung "cid, ifname, address"
+     * answers, one of them without an interface as after a failed attempt.
+     */
+    static RilBenchFixtures
+    setupDataCall() {
+        RilBenchFixtures f = new RilBenchFixtures();
+
+        for (int i = 0; i < 16; i++) {
+            int serial = f.request(RIL_REQUEST_SETUP_DATA_CALL, 7);
+
+            Parcel p = f.solicited(serial, 0);
+            if (i == 5) {
+                p.writeInt(1);
+                p.writeString("0");
+            } else {
+                p.writeInt(3);
+                p.writeString(Integer.toString(1 + i % 3));
+                p.writeString(i % 2 == 0 ? "rmnet0" : "pdp0");
+                p.writeString("10.64." + i + ".2");
+            }
+            f.add(RilCaptureFormat.SOLICITED, p, 900000000L);
+
+            Parcel u = f.unsolicited(RIL_UNSOL_HSDPA_STATE_CHANGED);
+            u.writeInt(1);
+            u.writeInt(i % 2);
+            f.add(RilCaptureFormat.UNSOLICITED, u, 100000000L);
+        }
+        return f;
+    }
+
+    // Records the request parcel and returns its serial. Only strings
+    // follow the serial, numStrings empty ones.
+    private int
+    request(int request, int numStrings) {
+        int serial = mSerial++;
+        Parcel p = Parcel.obtain();
+
+        p.writeInt(request);
+        p.writeInt(serial);
+        if (numStrings > 0) {
+            p.writeInt(numStrings);
+            for (int i = 0; i < numStrings; i++) {
+                p.writeString("");
+            }
+        }
+        add(RilCaptureFormat.REQUEST, p, 1000000L);
+        return serial;
+    }
+
+    private Parcel
+    solicited(int serial, int error) {
+        Parcel p = Parcel.obtain();
+
+        p.writeInt(RIL.RESPONSE_SOLICITED);
+        p.writeInt(serial);
+        p.writeInt(error);
+        return p;
+    }
+
+    private Parcel
+    unsolicited(int response) {
+        Parcel p = Parcel.obtain();
+
+        p.writeInt(RIL.RESPONSE_UNSOLICITED);
+        p.writeInt(response);
+        return p;
+    }
+
+    private void
+    add(byte direction, Parcel p, long delayNanos) {
+        byte[] data = p.marshall();
+        p.recycle();
+
+        mTime += delayNanos;
+
+        ByteBuffer record = ByteBuffer.allocate(RilCaptureFormat.RECORD_HEADER_SIZE + data.length);
+        record.order(ByteOrder.LITTLE_ENDIAN);
+        record.putInt(data.length);
+        record.put(direction);
+        record.putLong(mTime);
+        record.put(data);
+        mRecords.add(record.array());
+    }
+
+    private void
+    write(File file) throws IOException {
+        int size = RilCaptureFormat.HEADER_SIZE;
+        for (byte[] record : mRecords) {
+            size += record.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(RilCaptureFormat.MAGIC);
+        buffer.putInt(RilCaptureFormat.VERSION);
+        buffer.putInt(size);
+        buffer.putInt(0);
+        for (byte[] record : mRecords) {
+            buffer.put(record);
+        }
+
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(buffer.array());
+        } finally {
+            out.close();
+        }
+    }
+}
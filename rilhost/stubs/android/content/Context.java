@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.content;
+
+import android.os.PowerManager;
+
+import java.util.ArrayList;
+
+/**
+ * Host stand-in for Context. Broadcasts and service starts are recorded
+ * rather than delivered, so a host run can check what the RIL sent out.
+ */
+public class Context {
+    public static final String POWER_SERVICE = "power";
+
+    private final PowerManager mPowerManager = new PowerManager();
+    private final ArrayList<Intent> mSent = new ArrayList<Intent>();
+
+    public void sendBroadcast(Intent intent) {
+        synchronized (mSent) {
+            mSent.add(intent);
+        }
+    }
+
+    public ComponentName startService(Intent service) {
+        synchronized (mSent) {
+            mSent.add(service);
+        }
+        return service.getComponent();
+    }
+
+    public Object getSystemService(String name) {
+        return POWER_SERVICE.equals(name) ? mPowerManager : null;
+    }
+
+    public ArrayList<Intent> getSentIntents() {
+        synchronized (mSent) {
+            return new ArrayList<Intent>(mSent);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.content;
+
+import android.net.Uri;
+
+import java.util.HashMap;
+
+/** Host stand-in for Intent. */
+public class Intent {
+    public static final int FLAG_EXCLUDE_STOPPED_PACKAGES = 0x00000010;
+    public static final int FLAG_INCLUDE_STOPPED_PACKAGES = 0x00000020;
+
+    private String mAction;
+    private ComponentName mComponent;
+    private Uri mData;
+    private String mType;
+    private int mFlags;
+    private final HashMap<String, Object> mExtras = new HashMap<String, Object>();
+
+    public Intent() {
+    }
+
+    public Intent(String action) {
+        mAction = action;
+    }
+
+    public Intent setAction(String action) {
+        mAction = action;
+        return this;
+    }
+
+    public String getAction() {
+        return mAction;
+    }
+
+    public Intent addCategory(String category) {
+        return this;
+    }
+
+    public Intent setComponent(ComponentName component) {
+        mComponent = component;
+        return this;
+    }
+
+    public ComponentName getComponent() {
+        return mComponent;
+    }
+
+    public Intent setFlags(int flags) {
+        mFlags = flags;
+        return this;
+    }
+
+    public Intent addFlags(int flags) {
+        mFlags |= flags;
+        return this;
+    }
+
+    public int getFlags() {
+        return mFlags;
+    }
+
+    public Intent setDataAndType(Uri data, String type) {
+        mData = data;
+        mType = type;
+        return this;
+    }
+
+    public Uri getData() {
+        return mData;
+    }
+
+    public String getType() {
+        return mType;
+    }
+
+    public Intent putExtra(String name, String value) {
+        mExtras.put(name, value);
+        return this;
+    }
+
+    public Intent putExtra(String name, int value) {
+        mExtras.put(name, value);
+        return this;
+    }
+
+    public Intent putExtra(String name, long value) {
+        mExtras.put(name, value);
+        return this;
+    }
+
+    public Intent putExtra(String name, boolean value) {
+        mExtras.put(name, value);
+        return this;
+    }
+
+    public Intent putExtra(String name, float value) {
+        mExtras.put(name, value);
+        return this;
+    }
+
+    public Object getExtra(String name) {
+        return mExtras.get(name);
+    }
+}
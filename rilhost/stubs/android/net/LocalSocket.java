@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+
+/**
+ * Host stand-in for LocalSocket. There is no rild to talk to, so writes go
+ * to an in-memory buffer a host run can inspect or ignore.
+ */
+public class LocalSocket {
+    private final ByteArrayOutputStream mOut = new ByteArrayOutputStream();
+
+    public OutputStream getOutputStream() {
+        return mOut;
+    }
+
+    public synchronized void reset() {
+        mOut.reset();
+    }
+
+    public void close() {
+    }
+}
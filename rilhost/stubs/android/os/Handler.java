@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+/** Host stand-in for Handler, backed by the stand-in Looper. */
+public class Handler {
+    final Looper mLooper;
+
+    public Handler() {
+        this(Looper.myLooper());
+    }
+
+    public Handler(Looper looper) {
+        if (looper == null) {
+            throw new RuntimeException(
+                    "Can't create handler inside thread that has not called Looper.prepare()");
+        }
+        mLooper = looper;
+    }
+
+    public void handleMessage(Message msg) {
+    }
+
+    public void dispatchMessage(Message msg) {
+        if (msg.callback != null) {
+            msg.callback.run();
+        } else {
+            handleMessage(msg);
+        }
+    }
+
+    public final Looper getLooper() {
+        return mLooper;
+    }
+
+    public final Message obtainMessage(int what) {
+        return Message.obtain(this, what, null);
+    }
+
+    public final Message obtainMessage(int what, Object obj) {
+        return Message.obtain(this, what, obj);
+    }
+
+    public final boolean post(Runnable r) {
+        return postDelayed(r, 0);
+    }
+
+    public final boolean postDelayed(Runnable r, long delayMillis) {
+        return postAtTime(r, SystemClock.uptimeMillis() + Math.max(0, delayMillis));
+    }
+
+    public final boolean postAtTime(Runnable r, long uptimeMillis) {
+        Message m = Message.obtain(this, 0, null);
+        m.callback = r;
+        return mLooper.enqueue(m, uptimeMillis);
+    }
+
+    public final boolean sendMessage(Message msg) {
+        return sendMessageDelayed(msg, 0);
+    }
+
+    public final boolean sendEmptyMessage(int what) {
+        return sendMessage(obtainMessage(what));
+    }
+
+    public final boolean sendMessageDelayed(Message msg, long delayMillis) {
+        msg.target = this;
+        return mLooper.enqueue(msg, SystemClock.uptimeMillis() + Math.max(0, delayMillis));
+    }
+
+    public final void removeCallbacks(Runnable r) {
+        mLooper.remove(this, 0, r);
+    }
+
+    public final void removeMessages(int what) {
+        mLooper.remove(this, what, null);
+    }
+
+    public final boolean hasMessages(int what) {
+        return mLooper.has(this, what);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+/**
+ * Host stand-in for Looper: a time ordered message queue drained by the
+ * thread that called loop().
+ */
+public final class Looper {
+    private static final ThreadLocal<Looper> sThreadLocal = new ThreadLocal<Looper>();
+    private static Looper sMainLooper;
+
+    private final Thread mThread;
+    private Message mMessages;
+    private boolean mQuit;
+
+    private Looper() {
+        mThread = Thread.currentThread();
+    }
+
+    public static void prepare() {
+        if (sThreadLocal.get() != null) {
+            throw new RuntimeException("Only one Looper may be created per thread");
+        }
+        sThreadLocal.set(new Looper());
+    }
+
+    public static synchronized void prepareMainLooper() {
+        prepare();
+        sMainLooper = myLooper();
+    }
+
+    public static synchronized Looper getMainLooper() {
+        return sMainLooper;
+    }
+
+    public static Looper myLooper() {
+        return sThreadLocal.get();
+    }
+
+    public Thread getThread() {
+        return mThread;
+    }
+
+    public static void loop() {
+        Looper me = myLooper();
+        if (me == null) {
+            throw new RuntimeException("No Looper; Looper.prepare() wasn't called on this thread.");
+        }
+        for (;;) {
+            Message msg = me.next();
+            if (msg == null) {
+                return;
+            }
+            msg.target.dispatchMessage(msg);
+        }
+    }
+
+    public synchronized void quit() {
+        mQuit = true;
+        notifyAll();
+    }
+
+    synchronized boolean enqueue(Message msg, long when) {
+        if (mQuit) {
+            return false;
+        }
+        msg.when = when;
+        Message prev = null;
+        Message p = mMessages;
+        while (p != null && p.when <= when) {
+            prev = p;
+            p = p.next;
+        }
+        msg.next = p;
+        if (prev == null) {
+            mMessages = msg;
+        } else {
+            prev.next = msg;
+        }
+        notifyAll();
+        return true;
+    }
+
+    synchronized void remove(Handler h, int what, Runnable r) {
+        Message prev = null;
+        Message p = mMessages;
+        while (p != null) {
+            Message next = p.next;
+            boolean match = p.target == h
+                    && (r != null ? p.callback == r : p.callback == null && p.what == what);
+            if (match) {
+                if (prev == null) {
+                    mMessages = next;
+                } else {
+                    prev.next = next;
+                }
+            } else {
+                prev = p;
+            }
+            p = next;
+        }
+    }
+
+    synchronized boolean has(Handler h, int what) {
+        for (Message p = mMessages; p != null; p = p.next) {
+            if (p.target == h && p.callback == null && p.what == what) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized Message next() {
+        for (;;) {
+            if (mQuit) {
+                return null;
+            }
+            long now = SystemClock.uptimeMillis();
+            Message msg = mMessages;
+            if (msg != null && msg.when <= now) {
+                mMessages = msg.next;
+                msg.next = null;
+                return msg;
+            }
+            try {
+                wait(msg != null ? msg.when - now : 0);
+            } catch (InterruptedException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+import java.util.Arrays;
+
+/**
+ * Host stand-in for the framework Parcel. It keeps the wire layout rild
+ * and libbinder use (little endian, 4 byte alignment, String16 strings)
+ * so captures taken on a device decode the same way here.
+ */
+public final class Parcel {
+    private static final int POOL_SIZE = 6;
+    private static final Parcel[] sPool = new Parcel[POOL_SIZE];
+
+    private byte[] mData = new byte[64];
+    private int mSize;
+    private int mPos;
+
+    private Parcel() {
+    }
+
+    public static Parcel obtain() {
+        synchronized (sPool) {
+            for (int i = 0; i < POOL_SIZE; i++) {
+                Parcel p = sPool[i];
+                if (p != null) {
+                    sPool[i] = null;
+                    return p;
+                }
+            }
+        }
+        return new Parcel();
+    }
+
+    public void recycle() {
+        mSize = 0;
+        mPos = 0;
+        synchronized (sPool) {
+            for (int i = 0; i < POOL_SIZE; i++) {
+                if (sPool[i] == null) {
+                    sPool[i] = this;
+                    return;
+                }
+            }
+        }
+    }
+
+    public int dataSize() {
+        return mSize;
+    }
+
+    public int dataAvail() {
+        return mSize > mPos ? mSize - mPos : 0;
+    }
+
+    public int dataPosition() {
+        return mPos;
+    }
+
+    public void setDataPosition(int pos) {
+        mPos = pos;
+    }
+
+    public void setDataSize(int size) {
+        ensure(size);
+        mSize = size;
+        if (mPos > size) {
+            mPos = size;
+        }
+    }
+
+    public byte[] marshall() {
+        return Arrays.copyOf(mData, mSize);
+    }
+
+    public void unmarshall(byte[] data, int offset, int length) {
+        ensure(length);
+        System.arraycopy(data, offset, mData, 0, length);
+        mSize = length;
+        mPos = 0;
+    }
+
+    public void appendFrom(Parcel parcel, int offset, int length) {
+        grow(length);
+        System.arraycopy(parcel.mData, offset, mData, mPos, length);
+        advance(length);
+    }
+
+    public void writeInt(int val) {
+        grow(4);
+        putInt(mPos, val);
+        advance(4);
+    }
+
+    public void writeLong(long val) {
+        grow(8);
+        putInt(mPos, (int) val);
+        putInt(mPos + 4, (int) (val >>> 32));
+        advance(8);
+    }
+
+    public void writeString(String val) {
+        if (val == null) {
+            writeInt(-1);
+            return;
+        }
+        int len = val.length();
+        writeInt(len);
+        int bytes = pad((len + 1) * 2);
+        grow(bytes);
+        for (int i = 0; i < len; i++) {
+            char c = val.charAt(i);
+            mData[mPos + i * 2] = (byte) c;
+            mData[mPos + i * 2 + 1] = (byte) (c >> 8);
+        }
+        Arrays.fill(mData, mPos + len * 2, mPos + bytes, (byte) 0);
+        advance(bytes);
+    }
+
+    public void writeByteArray(byte[] b) {
+        if (b == null) {
+            writeInt(-1);
+            return;
+        }
+        writeInt(b.length);
+        int bytes = pad(b.length);
+        grow(bytes);
+        System.arraycopy(b, 0, mData, mPos, b.length);
+        Arrays.fill(mData, mPos + b.length, mPos + bytes, (byte) 0);
+        advance(bytes);
+    }
+
+    public int readInt() {
+        if (mPos + 4 > mSize) {
+            mPos = mSize;
+            return 0;
+        }
+        int v = getInt(mPos);
+        mPos += 4;
+        return v;
+    }
+
+    public long readLong() {
+        if (mPos + 8 > mSize) {
+            mPos = mSize;
+            return 0;
+        }
+        long lo = getInt(mPos) & 0xffffffffL;
+        long hi = getInt(mPos + 4);
+        mPos += 8;
+        return (hi << 32) | lo;
+    }
+
+    public String readString() {
+        int len = readInt();
+        int bytes = pad((len + 1) * 2);
+        if (len < 0 || mPos + bytes > mSize) {
+            return null;
+        }
+        char[] chars = new char[len];
+        for (int i = 0; i < len; i++) {
+            chars[i] = (char) ((mData[mPos + i * 2] & 0xff)
+                    | ((mData[mPos + i * 2 + 1] & 0xff) << 8));
+        }
+        mPos += bytes;
+        return new String(chars);
+    }
+
+    public byte[] createByteArray() {
+        int len = readInt();
+        if (len < 0 || mPos + len > mSize) {
+            return null;
+        }
+        byte[] b = Arrays.copyOfRange(mData, mPos, mPos + len);
+        mPos += pad(len);
+        return b;
+    }
+
+    private static int pad(int len) {
+        return (len + 3) & ~3;
+    }
+
+    private void advance(int len) {
+        mPos += len;
+        if (mPos > mSize) {
+            mSize = mPos;
+        }
+    }
+
+    private void grow(int len) {
+        ensure(mPos + len);
+    }
+
+    private void ensure(int capacity) {
+        if (capacity > mData.length) {
+            mData = Arrays.copyOf(mData, Math.max(capacity, mData.length * 2));
+        }
+    }
+
+    private void putInt(int at, int v) {
+        mData[at] = (byte) v;
+        mData[at + 1] = (byte) (v >> 8);
+        mData[at + 2] = (byte) (v >> 16);
+        mData[at + 3] = (byte) (v >> 24);
+    }
+
+    private int getInt(int at) {
+        return (mData[at] & 0xff) | ((mData[at + 1] & 0xff) << 8)
+                | ((mData[at + 2] & 0xff) << 16) | ((mData[at + 3] & 0xff) << 24);
+    }
+}
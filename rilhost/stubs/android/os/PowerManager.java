@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+/** Host stand-in for PowerManager; wake locks only count. */
+public final class PowerManager {
+    public static final int PARTIAL_WAKE_LOCK = 0x00000001;
+
+    public WakeLock newWakeLock(int levelAndFlags, String tag) {
+        return new WakeLock();
+    }
+
+    public final class WakeLock {
+        private boolean mRefCounted = true;
+        private int mCount;
+
+        public synchronized void acquire() {
+            mCount = mRefCounted ? mCount + 1 : 1;
+        }
+
+        public synchronized void release() {
+            mCount = mRefCounted && mCount > 0 ? mCount - 1 : 0;
+        }
+
+        public synchronized boolean isHeld() {
+            return mCount > 0;
+        }
+
+        public synchronized void setReferenceCounted(boolean value) {
+            mRefCounted = value;
+        }
+    }
+}
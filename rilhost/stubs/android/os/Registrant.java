@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+/** Host stand-in for Registrant. */
+public class Registrant {
+    private final Handler mHandler;
+    private final int mWhat;
+    private final Object mUserObj;
+
+    public Registrant(Handler h, int what, Object obj) {
+        mHandler = h;
+        mWhat = what;
+        mUserObj = obj;
+    }
+
+    public Handler getHandler() {
+        return mHandler;
+    }
+
+    public void notifyRegistrant() {
+        notifyRegistrant(new AsyncResult(null, null, null));
+    }
+
+    public void notifyResult(Object result) {
+        notifyRegistrant(new AsyncResult(null, result, null));
+    }
+
+    public void notifyRegistrant(AsyncResult ar) {
+        if (mHandler == null) {
+            return;
+        }
+        Message msg = mHandler.obtainMessage(mWhat,
+                new AsyncResult(mUserObj, ar.result, ar.exception));
+        mHandler.sendMessage(msg);
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+import java.util.ArrayList;
+
+/** Host stand-in for RegistrantList. */
+public class RegistrantList {
+    private final ArrayList<Registrant> mRegistrants = new ArrayList<Registrant>();
+
+    public synchronized void add(Handler h, int what, Object obj) {
+        mRegistrants.add(new Registrant(h, what, obj));
+    }
+
+    public synchronized int size() {
+        return mRegistrants.size();
+    }
+
+    public void notifyRegistrants() {
+        notifyRegistrants(new AsyncResult(null, null, null));
+    }
+
+    public void notifyResult(Object result) {
+        notifyRegistrants(new AsyncResult(null, result, null));
+    }
+
+    public void notifyRegistrants(AsyncResult ar) {
+        Registrant[] registrants;
+        synchronized (this) {
+            registrants = mRegistrants.toArray(new Registrant[mRegistrants.size()]);
+        }
+        for (Registrant r : registrants) {
+            r.notifyRegistrant(ar);
+        }
+    }
+}
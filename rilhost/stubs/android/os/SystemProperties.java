@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Host stand-in for the property service. Values live in a map that tests
+ * and benchmarks fill in with set(), and set() runs the change callbacks
+ * the way a property write does on the device.
+ */
+public class SystemProperties {
+    private static final ConcurrentHashMap<String, String> sProps =
+            new ConcurrentHashMap<String, String>();
+    private static final ArrayList<Runnable> sChangeCallbacks = new ArrayList<Runnable>();
+
+    public static String get(String key) {
+        return get(key, "");
+    }
+
+    public static String get(String key, String def) {
+        String v = sProps.get(key);
+        return v != null ? v : def;
+    }
+
+    public static int getInt(String key, int def) {
+        try {
+            return Integer.parseInt(get(key));
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+
+    public static long getLong(String key, long def) {
+        try {
+            return Long.parseLong(get(key));
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+
+    public static boolean getBoolean(String key, boolean def) {
+        String v = get(key);
+        if (v.equals("1") || v.equals("y") || v.equals("yes") || v.equals("on")
+                || v.equals("true")) {
+            return true;
+        }
+        if (v.equals("0") || v.equals("n") || v.equals("no") || v.equals("off")
+                || v.equals("false")) {
+            return false;
+        }
+        return def;
+    }
+
+    public static void set(String key, String val) {
+        if (val == null || val.length() == 0) {
+            sProps.remove(key);
+        } else {
+            sProps.put(key, val);
+        }
+        Runnable[] callbacks;
+        synchronized (sChangeCallbacks) {
+            callbacks = sChangeCallbacks.toArray(new Runnable[sChangeCallbacks.size()]);
+        }
+        for (Runnable r : callbacks) {
+            r.run();
+        }
+    }
+
+    public static void addChangeCallback(Runnable callback) {
+        synchronized (sChangeCallbacks) {
+            sChangeCallbacks.add(callback);
+        }
+    }
+}
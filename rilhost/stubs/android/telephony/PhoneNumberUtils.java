@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.telephony;
+
+/** Host stand-in for the PhoneNumberUtils calls the RIL makes. */
+public class PhoneNumberUtils {
+    public static final int TOA_International = 0x91;
+
+    private static final String[] EMERGENCY = { "112", "911", "000", "08", "110", "118", "119", "999" };
+
+    public static String stringFromStringAndTOA(String s, int TOA) {
+        if (s == null) return null;
+        if (TOA == TOA_International && s.length() > 0 && s.charAt(0) != '+') {
+            return "+" + s;
+        }
+        return s;
+    }
+
+    public static boolean isEmergencyNumber(String number) {
+        if (number == null) return false;
+        String n = extractNetworkPortionAlt(number);
+        for (String e : EMERGENCY) {
+            if (e.equals(n)) return true;
+        }
+        return false;
+    }
+
+    public static String extractNetworkPortionAlt(String phoneNumber) {
+        if (phoneNumber == null) return null;
+        StringBuilder ret = new StringBuilder(phoneNumber.length());
+        boolean haveSeenPlus = false;
+        for (int i = 0; i < phoneNumber.length(); i++) {
+            char c = phoneNumber.charAt(i);
+            if (c == '+') {
+                if (haveSeenPlus) continue;
+                haveSeenPlus = true;
+            }
+            if ((c >= '0' && c <= '9') || c == '*' || c == '#' || c == '+' || c == 'N') {
+                ret.append(c);
+            } else if (c == ',' || c == ';') {
+                break;
+            }
+        }
+        return ret.toString();
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.telephony;
+
+/**
+ * Host stand-in for Rlog. Warnings and errors go to stderr, debug output
+ * only when the JVM runs with -Drilhost.verbose=true so benchmarks are
+ * not measuring the console.
+ */
+public final class Rlog {
+    private static final boolean VERBOSE = Boolean.getBoolean("rilhost.verbose");
+
+    private Rlog() {
+    }
+
+    public static int v(String tag, String msg) {
+        return VERBOSE ? print("V", tag, msg, null) : 0;
+    }
+
+    public static int d(String tag, String msg) {
+        return VERBOSE ? print("D", tag, msg, null) : 0;
+    }
+
+    public static int i(String tag, String msg) {
+        return VERBOSE ? print("I", tag, msg, null) : 0;
+    }
+
+    public static int w(String tag, String msg) {
+        return print("W", tag, msg, null);
+    }
+
+    public static int w(String tag, String msg, Throwable tr) {
+        return print("W", tag, msg, tr);
+    }
+
+    public static int e(String tag, String msg) {
+        return print("E", tag, msg, null);
+    }
+
+    public static int e(String tag, String msg, Throwable tr) {
+        return print("E", tag, msg, tr);
+    }
+
+    private static int print(String level, String tag, String msg, Throwable tr) {
+        System.err.println(level + "/" + tag + ": " + msg);
+        if (tr != null) {
+            tr.printStackTrace();
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.telephony;
+
+/** Host stand-in for SignalStrength; keeps the raw fields. */
+public class SignalStrength {
+    private final int mGsmSignalStrength;
+    private final int mGsmBitErrorRate;
+    private final int mCdmaDbm;
+    private final int mCdmaEcio;
+    private final int mEvdoDbm;
+    private final int mEvdoEcio;
+    private final int mEvdoSnr;
+    private final boolean mIsGsm;
+
+    public SignalStrength(int gsmSignalStrength, int gsmBitErrorRate, int cdmaDbm,
+            int cdmaEcio, int evdoDbm, int evdoEcio, int evdoSnr, boolean gsm) {
+        mGsmSignalStrength = gsmSignalStrength;
+        mGsmBitErrorRate = gsmBitErrorRate;
+        mCdmaDbm = cdmaDbm;
+        mCdmaEcio = cdmaEcio;
+        mEvdoDbm = evdoDbm;
+        mEvdoEcio = evdoEcio;
+        mEvdoSnr = evdoSnr;
+        mIsGsm = gsm;
+    }
+
+    public SignalStrength(SignalStrength s) {
+        this(s.mGsmSignalStrength, s.mGsmBitErrorRate, s.mCdmaDbm, s.mCdmaEcio,
+                s.mEvdoDbm, s.mEvdoEcio, s.mEvdoSnr, s.mIsGsm);
+    }
+
+    public int getGsmSignalStrength() {
+        return mGsmSignalStrength;
+    }
+
+    public int getCdmaDbm() {
+        return mCdmaDbm;
+    }
+
+    public boolean isGsm() {
+        return mIsGsm;
+    }
+
+    /** GSM asu to the 0..4 bar scale, as the framework does for GSM. */
+    public int getLevel() {
+        int asu = mGsmSignalStrength;
+        if (asu <= 2 || asu == 99) return 0;
+        if (asu >= 12) return 4;
+        if (asu >= 8) return 3;
+        if (asu >= 5) return 2;
+        return 1;
+    }
+
+    @Override
+    public String toString() {
+        return "SignalStrength: " + mGsmSignalStrength + " " + mGsmBitErrorRate + " "
+                + mCdmaDbm + " " + mCdmaEcio + " " + mEvdoDbm + " " + mEvdoEcio + " "
+                + mEvdoSnr + " " + (mIsGsm ? "gsm|lte" : "cdma");
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Registrant;
+import android.os.RegistrantList;
+
+/** Host stand-in for BaseCommands: registrants and radio state. */
+public abstract class BaseCommands implements CommandsInterface {
+    protected Context mContext;
+    protected RadioState mState = RadioState.RADIO_UNAVAILABLE;
+    protected final Object mStateMonitor = new Object();
+
+    protected RegistrantList mRadioStateChangedRegistrants = new RegistrantList();
+    protected RegistrantList mAvailRegistrants = new RegistrantList();
+    protected RegistrantList mCallStateRegistrants = new RegistrantList();
+    protected RegistrantList mVoiceNetworkStateRegistrants = new RegistrantList();
+    protected RegistrantList mDataNetworkStateRegistrants = new RegistrantList();
+    protected RegistrantList mIccStatusChangedRegistrants = new RegistrantList();
+    protected RegistrantList mVoicePrivacyOnRegistrants = new RegistrantList();
+    protected RegistrantList mVoicePrivacyOffRegistrants = new RegistrantList();
+    protected RegistrantList mDisplayInfoRegistrants = new RegistrantList();
+    protected RegistrantList mSignalInfoRegistrants = new RegistrantList();
+    protected RegistrantList mNumberInfoRegistrants = new RegistrantList();
+    protected Registrant mSignalStrengthRegistrant;
+    protected Registrant mNITZTimeRegistrant;
+    protected Registrant mCatProCmdRegistrant;
+
+    public BaseCommands(Context context) {
+        mContext = context;
+    }
+
+    public RadioState getRadioState() {
+        return mState;
+    }
+
+    public void setOnNITZTime(Handler h, int what, Object obj) {
+        mNITZTimeRegistrant = new Registrant(h, what, obj);
+    }
+
+    public void setOnSignalStrengthUpdate(Handler h, int what, Object obj) {
+        mSignalStrengthRegistrant = new Registrant(h, what, obj);
+    }
+
+    public void setOnCatProactiveCmd(Handler h, int what, Object obj) {
+        mCatProCmdRegistrant = new Registrant(h, what, obj);
+    }
+
+    public void registerForCallStateChanged(Handler h, int what, Object obj) {
+        mCallStateRegistrants.add(h, what, obj);
+    }
+
+    public void registerForVoiceNetworkStateChanged(Handler h, int what, Object obj) {
+        mVoiceNetworkStateRegistrants.add(h, what, obj);
+    }
+
+    public void registerForSignalInfo(Handler h, int what, Object obj) {
+        mSignalInfoRegistrants.add(h, what, obj);
+    }
+
+    public void registerForDisplayInfo(Handler h, int what, Object obj) {
+        mDisplayInfoRegistrants.add(h, what, obj);
+    }
+
+    protected void setRadioState(RadioState newState) {
+        RadioState oldState;
+
+        synchronized (mStateMonitor) {
+            oldState = mState;
+            mState = newState;
+
+            if (oldState == mState) {
+                return;
+            }
+
+            mRadioStateChangedRegistrants.notifyRegistrants();
+
+            if (mState.isAvailable() && !oldState.isAvailable()) {
+                mAvailRegistrants.notifyRegistrants();
+                onRadioAvailable();
+            }
+        }
+    }
+
+    protected void onRadioAvailable() {
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+/** Host port of DriverCall. */
+public class DriverCall implements Comparable<DriverCall> {
+    public enum State {
+        ACTIVE,
+        HOLDING,
+        DIALING,    // MO call only
+        ALERTING,   // MO call only
+        INCOMING,   // MT call only
+        WAITING;    // MT call only
+    }
+
+    public int index;
+    public boolean isMT;
+    public State state;     // May be null if unknown
+    public boolean isMpty;
+    public String number;
+    public int TOA;
+    public boolean isVoice;
+    public boolean isVoicePrivacy;
+    public int als;
+    public int numberPresentation;
+    public String name;
+    public int namePresentation;
+    public UUSInfo uusInfo;
+
+    public static State stateFromCLCC(int state) {
+        switch (state) {
+            case 0: return State.ACTIVE;
+            case 1: return State.HOLDING;
+            case 2: return State.DIALING;
+            case 3: return State.ALERTING;
+            case 4: return State.INCOMING;
+            case 5: return State.WAITING;
+            default:
+                throw new RuntimeException("illegal call state " + state);
+        }
+    }
+
+    public static int presentationFromCLIP(int cli) {
+        switch (cli) {
+            case 0: return 1;   // PhoneConstants.PRESENTATION_ALLOWED
+            case 1: return 2;   // PhoneConstants.PRESENTATION_RESTRICTED
+            case 2: return 3;   // PhoneConstants.PRESENTATION_UNKNOWN
+            case 3: return 4;   // PhoneConstants.PRESENTATION_PAYPHONE
+            default:
+                throw new RuntimeException("illegal presentation " + cli);
+        }
+    }
+
+    @Override
+    public int compareTo(DriverCall dc) {
+        if (index < dc.index) {
+            return -1;
+        } else if (index == dc.index) {
+            return 0;
+        } else {
+            return 1;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "id=" + index + "," + state + ",toa=" + TOA + ","
+                + (isMpty ? "conf" : "norm") + "," + (isMT ? "mt" : "mo") + "," + als
+                + "," + (isVoice ? "voc" : "nonvoc") + "," + (isVoicePrivacy ? "evp" : "noevp")
+                + ",cli=" + numberPresentation + "," + ",cnap=" + namePresentation;
+    }
+}
@@ -0,0 +1,802 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import static com.android.internal.telephony.RILConstants.*;
+
+import android.content.Context;
+import android.net.LocalSocket;
+import android.os.AsyncResult;
+import android.os.Message;
+import android.os.Parcel;
+import android.telephony.Rlog;
+import android.util.SparseArray;
+
+import com.android.internal.telephony.cdma.CdmaInformationRecords;
+import com.android.internal.telephony.dataconnection.DataCallResponse;
+import com.android.internal.telephony.uicc.IccCardApplicationStatus;
+import com.android.internal.telephony.uicc.IccCardStatus;
+import com.android.internal.telephony.uicc.IccIoResult;
+
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+
+/**
+ * Host stand-in for the CM11 RIL base class. There are no sender and
+ * receiver threads: send() writes to mSocket on the calling thread and a
+ * host run hands rild's side of the conversation to processResponse().
+ * The request bookkeeping, the wakelock count and the response decoders
+ * are ports of the real ones, so a subclass sees the same behavior.
+ */
+public class RIL extends BaseCommands implements CommandsInterface {
+    static final String RILJ_LOG_TAG = "RILJ";
+    static final boolean RILJ_LOGD = true;
+    static final boolean RILJ_LOGV = false;
+
+    static final int RESPONSE_SOLICITED = 0;
+    static final int RESPONSE_UNSOLICITED = 1;
+
+    private static final SparseArray<String> sRequestNames = new SparseArray<String>();
+    private static final SparseArray<String> sResponseNames = new SparseArray<String>();
+
+    static {
+        for (Field f : RILConstants.class.getFields()) {
+            try {
+                String name = f.getName();
+                if (name.startsWith("RIL_REQUEST_")) {
+                    sRequestNames.put(f.getInt(null), name.substring("RIL_REQUEST_".length()));
+                } else if (name.startsWith("RIL_UNSOL_")) {
+                    sResponseNames.put(f.getInt(null), name.substring("RIL_".length()));
+                }
+            } catch (IllegalAccessException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    LocalSocket mSocket;
+    Object mLastNITZTimeInfo;
+
+    int mWakeLockCount;
+
+    SparseArray<RILRequest> mRequestList = new SparseArray<RILRequest>();
+
+    public RIL(Context context, int preferredNetworkType, int cdmaSubscription) {
+        super(context);
+    }
+
+    /**
+     * Feeds one response parcel, positioned at its type field, through
+     * the same path as the receiver thread.
+     */
+    void processResponse(Parcel p) {
+        int type;
+
+        type = p.readInt();
+
+        if (type == RESPONSE_UNSOLICITED) {
+            processUnsolicited(p);
+        } else if (type == RESPONSE_SOLICITED) {
+            RILRequest rr = processSolicited(p);
+            if (rr != null) {
+                rr.release();
+                decrementWakeLock();
+            }
+        }
+    }
+
+    protected void send(RILRequest rr) {
+        if (mSocket == null) {
+            rr.onError(RADIO_NOT_AVAILABLE, null);
+            rr.release();
+            return;
+        }
+
+        acquireWakeLock();
+
+        synchronized (mRequestList) {
+            mRequestList.append(rr.mSerial, rr);
+        }
+
+        byte[] data = rr.mParcel.marshall();
+        rr.mParcel.recycle();
+        rr.mParcel = null;
+
+        try {
+            OutputStream out = mSocket.getOutputStream();
+            synchronized (mSocket) {
+                out.write(data.length >> 24);
+                out.write(data.length >> 16);
+                out.write(data.length >> 8);
+                out.write(data.length);
+                out.write(data);
+            }
+        } catch (IOException ex) {
+            Rlog.e(RILJ_LOG_TAG, "IOException", ex);
+            RILRequest req = findAndRemoveRequestFromList(rr.mSerial);
+            if (req != null) {
+                rr.onError(RADIO_NOT_AVAILABLE, null);
+                rr.release();
+                decrementWakeLock();
+            }
+        }
+    }
+
+    protected void acquireWakeLock() {
+        synchronized (this) {
+            mWakeLockCount++;
+        }
+    }
+
+    protected void decrementWakeLock() {
+        synchronized (this) {
+            if (mWakeLockCount > 1) {
+                mWakeLockCount--;
+            } else {
+                mWakeLockCount = 0;
+            }
+        }
+    }
+
+    protected RILRequest findAndRemoveRequestFromList(int serial) {
+        RILRequest rr = null;
+        synchronized (mRequestList) {
+            rr = mRequestList.get(serial);
+            if (rr != null) {
+                mRequestList.remove(serial);
+            }
+        }
+
+        return rr;
+    }
+
+    protected RILRequest processSolicited(Parcel p) {
+        int serial, error;
+
+        serial = p.readInt();
+        error = p.readInt();
+
+        RILRequest rr = findAndRemoveRequestFromList(serial);
+
+        if (rr == null) {
+            Rlog.w(RILJ_LOG_TAG, "Unexpected solicited response! sn: "
+                    + serial + " error: " + error);
+            return null;
+        }
+
+        Object ret = null;
+
+        if (error == 0 || p.dataAvail() > 0) {
+            ret = responseRaw(p);
+        }
+
+        if (error != 0) {
+            rr.onError(error, ret);
+            return rr;
+        }
+
+        if (rr.mResult != null) {
+            AsyncResult.forMessage(rr.mResult, ret, null);
+            rr.mResult.sendToTarget();
+        }
+
+        return rr;
+    }
+
+    /**
+     * Decodes the unsolicited responses the base class owns on the device
+     * far enough to notify the same registrants; the rest are logged.
+     */
+    protected void processUnsolicited(Parcel p) {
+        int response;
+        Object ret;
+
+        response = p.readInt();
+
+        switch (response) {
+            case RIL_UNSOL_RESPONSE_RADIO_STATE_CHANGED:
+                int state = p.readInt();
+                setRadioState(state == 0 ? RadioState.RADIO_OFF
+                        : state == 1 ? RadioState.RADIO_UNAVAILABLE : RadioState.RADIO_ON);
+                return;
+
+            case RIL_UNSOL_RESPONSE_CALL_STATE_CHANGED:
+                mCallStateRegistrants.notifyRegistrants(new AsyncResult(null, null, null));
+                return;
+
+            case RIL_UNSOL_RESPONSE_VOICE_NETWORK_STATE_CHANGED:
+                mVoiceNetworkStateRegistrants.notifyRegistrants(new AsyncResult(null, null, null));
+                return;
+
+            case RIL_UNSOL_RESPONSE_SIM_STATUS_CHANGED:
+                mIccStatusChangedRegistrants.notifyRegistrants();
+                return;
+
+            case RIL_UNSOL_DATA_CALL_LIST_CHANGED:
+                ret = responseDataCallList(p);
+                break;
+
+            case RIL_UNSOL_RESPONSE_NEW_SMS:
+            case RIL_UNSOL_RESPONSE_NEW_SMS_STATUS_REPORT:
+            case RIL_UNSOL_STK_SESSION_END:
+            case RIL_UNSOL_STK_EVENT_NOTIFY:
+                ret = responseString(p);
+                break;
+
+            case RIL_UNSOL_ON_USSD:
+                ret = responseStrings(p);
+                break;
+
+            case RIL_UNSOL_OEM_HOOK_RAW:
+                ret = responseRaw(p);
+                break;
+
+            default:
+                ret = p.dataAvail() >= 4 ? responseInts(p) : null;
+                break;
+        }
+
+        if (RILJ_LOGV) unsljLogvRet(response, ret);
+    }
+
+    protected void notifyRegistrantsCdmaInfoRec(CdmaInformationRecords infoRec) {
+        int response = RIL_UNSOL_CDMA_INFO_REC;
+        if (infoRec.record instanceof CdmaInformationRecords.CdmaDisplayInfoRec) {
+            if (RILJ_LOGD) unsljLogRet(response, infoRec.record);
+            mDisplayInfoRegistrants.notifyRegistrants(new AsyncResult(null, infoRec.record, null));
+        } else if (infoRec.record instanceof CdmaInformationRecords.CdmaSignalInfoRec) {
+            if (RILJ_LOGD) unsljLogRet(response, infoRec.record);
+            mSignalInfoRegistrants.notifyRegistrants(new AsyncResult(null, infoRec.record, null));
+        } else if (infoRec.record instanceof CdmaInformationRecords.CdmaNumberInfoRec) {
+            if (RILJ_LOGD) unsljLogRet(response, infoRec.record);
+            mNumberInfoRegistrants.notifyRegistrants(new AsyncResult(null, infoRec.record, null));
+        }
+    }
+
+    //***** Requests the subclass reaches through super
+
+    public void getIMEI(Message result) {
+        sendPlain(RIL_REQUEST_GET_IMEI, result);
+    }
+
+    public void getIMEISV(Message result) {
+        sendPlain(RIL_REQUEST_GET_IMEISV, result);
+    }
+
+    public void getBasebandVersion(Message result) {
+        sendPlain(RIL_REQUEST_BASEBAND_VERSION, result);
+    }
+
+    public void getDeviceIdentity(Message result) {
+        sendPlain(RIL_REQUEST_DEVICE_IDENTITY, result);
+    }
+
+    public void getCDMASubscription(Message result) {
+        sendPlain(RIL_REQUEST_CDMA_SUBSCRIPTION, result);
+    }
+
+    public void getNeighboringCids(Message result) {
+        sendPlain(RIL_REQUEST_GET_NEIGHBORING_CELL_IDS, result);
+    }
+
+    public void resetRadio(Message result) {
+        sendPlain(RIL_REQUEST_RESET_RADIO, result);
+    }
+
+    public void getIMSI(Message result) {
+        getIMSIForApp(null, result);
+    }
+
+    public void getIMSIForApp(String aid, Message result) {
+        RILRequest rr = RILRequest.obtain(RIL_REQUEST_GET_IMSI, result);
+
+        rr.mParcel.writeInt(1);
+        rr.mParcel.writeString(aid);
+
+        if (RILJ_LOGD) riljLog(rr.serialString() + "> getIMSI: "
+                + requestToString(rr.mRequest) + " aid: " + aid);
+
+        send(rr);
+    }
+
+    public void setRadioPower(boolean on, Message result) {
+        RILRequest rr = RILRequest.obtain(RIL_REQUEST_RADIO_POWER, result);
+
+        rr.mParcel.writeInt(1);
+        rr.mParcel.writeInt(on ? 1 : 0);
+
+        if (RILJ_LOGD) riljLog(rr.serialString() + "> " + requestToString(rr.mRequest)
+                + (on ? " on" : " off"));
+
+        send(rr);
+    }
+
+    public void sendScreenState(boolean on, Message result) {
+        RILRequest rr = RILRequest.obtain(RIL_REQUEST_SCREEN_STATE, result);
+        rr.mParcel.writeInt(1);
+        rr.mParcel.writeInt(on ? 1 : 0);
+
+        if (RILJ_LOGD) riljLog(rr.serialString()
+                + "> " + requestToString(rr.mRequest) + ": " + on);
+
+        send(rr);
+    }
+
+    public void dial(String address, int clirMode, UUSInfo uusInfo, Message result) {
+        RILRequest rr = RILRequest.obtain(RIL_REQUEST_DIAL, result);
+
+        rr.mParcel.writeString(address);
+        rr.mParcel.writeInt(clirMode);
+
+        if (uusInfo == null) {
+            rr.mParcel.writeInt(0); // UUS information is absent
+        } else {
+            rr.mParcel.writeInt(1); // UUS information is present
+            rr.mParcel.writeInt(uusInfo.getType());
+            rr.mParcel.writeInt(uusInfo.getDcs());
+            rr.mParcel.writeByteArray(uusInfo.getUserData());
+        }
+
+        if (RILJ_LOGD) riljLog(rr.serialString() + "> " + requestToString(rr.mRequest));
+
+        send(rr);
+    }
+
+    public void setupDataCall(String radioTechnology, String profile, String apn,
+            String user, String password, String authType, String protocol,
+            Message result) {
+        RILRequest rr = RILRequest.obtain(RIL_REQUEST_SETUP_DATA_CALL, result);
+
+        rr.mParcel.writeInt(7);
+
+        rr.mParcel.writeString(radioTechnology);
+        rr.mParcel.writeString(profile);
+        rr.mParcel.writeString(apn);
+        rr.mParcel.writeString(user);
+        rr.mParcel.writeString(password);
+        rr.mParcel.writeString(authType);
+        rr.mParcel.writeString(protocol);
+
+        if (RILJ_LOGD) riljLog(rr.serialString() + "> "
+                + requestToString(rr.mRequest) + " " + radioTechnology + " "
+                + profile + " " + apn + " " + user + " "
+                + password + " " + authType + " " + protocol);
+
+        send(rr);
+    }
+
+    public void deactivateDataCall(int cid, int reason, Message result) {
+        RILRequest rr = RILRequest.obtain(RIL_REQUEST_DEACTIVATE_DATA_CALL, result);
+
+        rr.mParcel.writeInt(2);
+        rr.mParcel.writeString(Integer.toString(cid));
+        rr.mParcel.writeString(Integer.toString(reason));
+
+        if (RILJ_LOGD) riljLog(rr.serialString() + "> "
+                + requestToString(rr.mRequest) + " " + cid + " " + reason);
+
+        send(rr);
+    }
+
+    public void iccIO(int command, int fileid, String path, int p1, int p2, int p3,
+            String data, String pin2, Message result) {
+        iccIOForApp(command, fileid, path, p1, p2, p3, data, pin2, null, result);
+    }
+
+    public void iccIOForApp(int command, int fileid, String path, int p1, int p2, int p3,
+            String data, String pin2, String aid, Message result) {
+        RILRequest rr = RILRequest.obtain(RIL_REQUEST_SIM_IO, result);
+
+        rr.mParcel.writeInt(command);
+        rr.mParcel.writeInt(fileid);
+        rr.mParcel.writeString(path);
+        rr.mParcel.writeInt(p1);
+        rr.mParcel.writeInt(p2);
+        rr.mParcel.writeInt(p3);
+        rr.mParcel.writeString(data);
+        rr.mParcel.writeString(pin2);
+        rr.mParcel.writeString(aid);
+
+        if (RILJ_LOGD) riljLog(rr.serialString() + "> iccIO: "
+                + requestToString(rr.mRequest)
+                + " 0x" + Integer.toHexString(command)
+                + " 0x" + Integer.toHexString(fileid) + " "
+                + " path: " + path + ","
+                + p1 + "," + p2 + "," + p3
+                + " aid: " + aid);
+
+        send(rr);
+    }
+
+    public void sendSMS(String smscPDU, String pdu, Message result) {
+        sendSms(RIL_REQUEST_SEND_SMS, smscPDU, pdu, result);
+    }
+
+    public void sendSMSExpectMore(String smscPDU, String pdu, Message result) {
+        sendSms(RIL_REQUEST_SEND_SMS_EXPECT_MORE, smscPDU, pdu, result);
+    }
+
+    private void sendSms(int request, String smscPDU, String pdu, Message result) {
+        RILRequest rr = RILRequest.obtain(request, result);
+
+        rr.mParcel.writeInt(2);
+        rr.mParcel.writeString(smscPDU);
+        rr.mParcel.writeString(pdu);
+
+        if (RILJ_LOGD) riljLog(rr.serialString() + "> " + requestToString(rr.mRequest));
+
+        send(rr);
+    }
+
+    private void sendPlain(int request, Message result) {
+        RILRequest rr = RILRequest.obtain(request, result);
+
+        if (RILJ_LOGD) riljLog(rr.serialString() + "> " + requestToString(rr.mRequest));
+
+        send(rr);
+    }
+
+    public void dump(FileDescriptor fd, PrintWriter pw, String[] args) {
+        pw.println("RIL: " + this);
+        pw.println(" mSocket=" + mSocket);
+        pw.println(" mWakeLockCount=" + mWakeLockCount);
+        synchronized (mRequestList) {
+            int count = mRequestList.size();
+            pw.println(" mRequestList count=" + count);
+            for (int i = 0; i < count; i++) {
+                RILRequest rr = mRequestList.valueAt(i);
+                pw.println("  [" + rr.mSerial + "] " + requestToString(rr.mRequest));
+            }
+        }
+        pw.println(" mLastNITZTimeInfo=" + mLastNITZTimeInfo);
+    }
+
+    //***** Response decoders
+
+    protected Object responseInts(Parcel p) {
+        int numInts;
+        int response[];
+
+        numInts = p.readInt();
+
+        response = new int[numInts];
+
+        for (int i = 0 ; i < numInts ; i++) {
+            response[i] = p.readInt();
+        }
+
+        return response;
+    }
+
+    protected Object responseVoid(Parcel p) {
+        return null;
+    }
+
+    protected Object responseString(Parcel p) {
+        String response;
+
+        response = p.readString();
+
+        return response;
+    }
+
+    protected Object responseStrings(Parcel p) {
+        int num = p.readInt();
+        if (num < 0) {
+            return null;
+        }
+
+        String[] response = new String[num];
+        for (int i = 0; i < num; i++) {
+            response[i] = p.readString();
+        }
+
+        return response;
+    }
+
+    protected Object responseRaw(Parcel p) {
+        byte response[];
+
+        response = p.createByteArray();
+
+        return response;
+    }
+
+    protected Object responseSMS(Parcel p) {
+        int messageRef, errorCode;
+        String ackPDU;
+
+        messageRef = p.readInt();
+        ackPDU = p.readString();
+        errorCode = p.readInt();
+
+        SmsResponse response = new SmsResponse(messageRef, ackPDU, errorCode);
+
+        return response;
+    }
+
+    protected Object responseICC_IO(Parcel p) {
+        int sw1, sw2;
+        Message ret;
+
+        sw1 = p.readInt();
+        sw2 = p.readInt();
+
+        String s = p.readString();
+
+        return new IccIoResult(sw1, sw2, s);
+    }
+
+    protected Object responseIccCardStatus(Parcel p) {
+        IccCardApplicationStatus appStatus;
+
+        IccCardStatus cardStatus = new IccCardStatus();
+        cardStatus.setCardState(p.readInt());
+        cardStatus.setUniversalPinState(p.readInt());
+        cardStatus.mGsmUmtsSubscriptionAppIndex = p.readInt();
+        cardStatus.mCdmaSubscriptionAppIndex = p.readInt();
+        cardStatus.mImsSubscriptionAppIndex = p.readInt();
+        int numApplications = p.readInt();
+
+        // limit to maximum allowed applications
+        if (numApplications > IccCardStatus.CARD_MAX_APPS) {
+            numApplications = IccCardStatus.CARD_MAX_APPS;
+        }
+        cardStatus.mApplications = new IccCardApplicationStatus[numApplications];
+        for (int i = 0 ; i < numApplications ; i++) {
+            appStatus = new IccCardApplicationStatus();
+            appStatus.app_type       = p.readInt();
+            appStatus.app_state      = p.readInt();
+            appStatus.perso_substate = p.readInt();
+            appStatus.aid            = p.readString();
+            appStatus.app_label      = p.readString();
+            appStatus.pin1_replaced  = p.readInt();
+            appStatus.pin1           = p.readInt();
+            appStatus.pin2           = p.readInt();
+            cardStatus.mApplications[i] = appStatus;
+        }
+        return cardStatus;
+    }
+
+    protected Object responseCallForward(Parcel p) {
+        int numInfos;
+        CallForwardInfo infos[];
+
+        numInfos = p.readInt();
+
+        infos = new CallForwardInfo[numInfos];
+
+        for (int i = 0 ; i < numInfos ; i++) {
+            infos[i] = new CallForwardInfo();
+
+            infos[i].status = p.readInt();
+            infos[i].reason = p.readInt();
+            infos[i].serviceClass = p.readInt();
+            infos[i].toa = p.readInt();
+            infos[i].number = p.readString();
+            infos[i].timeSeconds = p.readInt();
+        }
+
+        return infos;
+    }
+
+    /** Operator infos come back as the raw groups of four strings. */
+    protected Object responseOperatorInfos(Parcel p) {
+        String strings[] = (String []) responseStrings(p);
+
+        if (strings != null && strings.length % 4 != 0) {
+            throw new RuntimeException(
+                "RIL_REQUEST_QUERY_AVAILABLE_NETWORKS: invalid response. Got "
+                + strings.length + " strings, expected multible of 4");
+        }
+
+        return strings;
+    }
+
+    /** Neighboring cells come back as "rssi cid" strings. */
+    protected Object responseCellList(Parcel p) {
+        int num = p.readInt();
+        ArrayList<String> response = new ArrayList<String>(num);
+
+        for (int i = 0 ; i < num ; i++) {
+            int rssi = p.readInt();
+            String location = p.readString();
+            response.add(rssi + " " + location);
+        }
+
+        return response;
+    }
+
+    /** GSM broadcast configs come back as the raw groups of five ints. */
+    protected Object responseGmsBroadcastConfig(Parcel p) {
+        int num = p.readInt();
+        int[] response = new int[num * 5];
+
+        for (int i = 0; i < response.length; i++) {
+            response[i] = p.readInt();
+        }
+
+        return response;
+    }
+
+    /** CDMA broadcast configs come back as the raw groups of three ints. */
+    protected Object responseCdmaBroadcastConfig(Parcel p) {
+        int num = p.readInt();
+        int[] response = new int[num * 3];
+
+        for (int i = 0; i < response.length; i++) {
+            response[i] = p.readInt();
+        }
+
+        return response;
+    }
+
+    protected Object responseDataCallList(Parcel p) {
+        ArrayList<DataCallResponse> response;
+
+        int ver = p.readInt();
+        int num = p.readInt();
+
+        response = new ArrayList<DataCallResponse>(num);
+        for (int i = 0; i < num; i++) {
+            DataCallResponse dataCall = new DataCallResponse();
+            dataCall.version = ver;
+            dataCall.status = p.readInt();
+            dataCall.suggestedRetryTime = p.readInt();
+            dataCall.cid = p.readInt();
+            dataCall.active = p.readInt();
+            dataCall.type = p.readString();
+            dataCall.ifname = p.readString();
+            String addresses = p.readString();
+            if (addresses != null && addresses.length() > 0) {
+                dataCall.addresses = addresses.split(" ");
+            }
+            String dnses = p.readString();
+            if (dnses != null && dnses.length() > 0) {
+                dataCall.dnses = dnses.split(" ");
+            }
+            String gateways = p.readString();
+            if (gateways != null && gateways.length() > 0) {
+                dataCall.gateways = gateways.split(" ");
+            }
+            response.add(dataCall);
+        }
+
+        return response;
+    }
+
+    protected ArrayList<CdmaInformationRecords> responseCdmaInformationRecord(Parcel p) {
+        int numberOfInfoRecs;
+        ArrayList<CdmaInformationRecords> response;
+
+        /**
+         * Loop through all of the information records unmarshalling them
+         * and converting them to Java Objects.
+         */
+        numberOfInfoRecs = p.readInt();
+        response = new ArrayList<CdmaInformationRecords>(numberOfInfoRecs);
+
+        for (int i = 0; i < numberOfInfoRecs; i++) {
+            CdmaInformationRecords InfoRec = new CdmaInformationRecords(p);
+            response.add(InfoRec);
+        }
+
+        return response;
+    }
+
+    // The device RIL overrides these three; the base formats are not ported.
+
+    protected Object responseCallList(Parcel p) {
+        throw new UnsupportedOperationException("responseCallList");
+    }
+
+    protected Object responseSignalStrength(Parcel p) {
+        throw new UnsupportedOperationException("responseSignalStrength");
+    }
+
+    protected Object responseSetupDataCall(Parcel p) {
+        throw new UnsupportedOperationException("responseSetupDataCall");
+    }
+
+    //***** Logging
+
+    static String requestToString(int request) {
+        String name = sRequestNames.get(request);
+        return name != null ? name : "<unknown request>";
+    }
+
+    static String responseToString(int request) {
+        String name = sResponseNames.get(request);
+        return name != null ? name : "<unknown response>";
+    }
+
+    static String retToString(int req, Object ret) {
+        if (ret == null) return "";
+        switch (req) {
+            // Don't log these return values, for privacy's sake.
+            case RIL_REQUEST_GET_IMSI:
+            case RIL_REQUEST_GET_IMEI:
+            case RIL_REQUEST_GET_IMEISV:
+                if (!RILJ_LOGV) {
+                    // If not versbose logging just return and don't display IMSI and IMEI, IMEISV
+                    return "";
+                }
+        }
+
+        StringBuilder sb;
+        String s;
+        int length;
+        if (ret instanceof int[]) {
+            int[] intArray = (int[]) ret;
+            length = intArray.length;
+            sb = new StringBuilder("{");
+            if (length > 0) {
+                int i = 0;
+                sb.append(intArray[i++]);
+                while (i < length) {
+                    sb.append(", ").append(intArray[i++]);
+                }
+            }
+            sb.append("}");
+            s = sb.toString();
+        } else if (ret instanceof String[]) {
+            String[] strings = (String[]) ret;
+            length = strings.length;
+            sb = new StringBuilder("{");
+            if (length > 0) {
+                int i = 0;
+                sb.append(strings[i++]);
+                while (i < length) {
+                    sb.append(", ").append(strings[i++]);
+                }
+            }
+            sb.append("}");
+            s = sb.toString();
+        } else {
+            s = ret.toString();
+        }
+        return s;
+    }
+
+    void riljLog(String msg) {
+        Rlog.d(RILJ_LOG_TAG, msg);
+    }
+
+    void riljLogv(String msg) {
+        Rlog.v(RILJ_LOG_TAG, msg);
+    }
+
+    void unsljLog(int response) {
+        riljLog("[UNSL]< " + responseToString(response));
+    }
+
+    void unsljLogMore(int response, String more) {
+        riljLog("[UNSL]< " + responseToString(response) + " " + more);
+    }
+
+    void unsljLogRet(int response, Object ret) {
+        riljLog("[UNSL]< " + responseToString(response) + " " + retToString(response, ret));
+    }
+
+    void unsljLogvRet(int response, Object ret) {
+        riljLogv("[UNSL]< " + responseToString(response) + " " + retToString(response, ret));
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+/** Host port of SmsResponse. */
+public class SmsResponse {
+    int mMessageRef;
+    String mAckPdu;
+    int mErrorCode;
+
+    public SmsResponse(int messageRef, String ackPdu, int errorCode) {
+        mMessageRef = messageRef;
+        mAckPdu = ackPdu;
+        mErrorCode = errorCode;
+    }
+
+    @Override
+    public String toString() {
+        return "{ mMessageRef = " + mMessageRef + ", mErrorCode = " + mErrorCode
+                + ", mAckPdu = " + mAckPdu + "}";
+    }
+}
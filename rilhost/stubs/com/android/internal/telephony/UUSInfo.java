@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+/** Host port of UUSInfo. */
+public class UUSInfo {
+    private int mUusType;
+    private int mUusDcs;
+    private byte[] mUusData;
+
+    public int getType() {
+        return mUusType;
+    }
+
+    public void setType(int uusType) {
+        mUusType = uusType;
+    }
+
+    public int getDcs() {
+        return mUusDcs;
+    }
+
+    public void setDcs(int uusDcs) {
+        mUusDcs = uusDcs;
+    }
+
+    public byte[] getUserData() {
+        return mUusData;
+    }
+
+    public void setUserData(byte[] uusData) {
+        mUusData = uusData;
+    }
+}
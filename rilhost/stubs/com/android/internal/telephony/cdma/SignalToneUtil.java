@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony.cdma;
+
+/** Host stand-in for the IS-95 signal constants in SignalToneUtil. */
+public class SignalToneUtil {
+    // public final int int IS95_CONST_IR_SIGNAL_TYPE_TYPE;
+    public static final int IS95_CONST_IR_SIGNAL_TONE = 0;
+    public static final int IS95_CONST_IR_SIGNAL_ISDN = 1;
+    public static final int IS95_CONST_IR_SIGNAL_IS54B = 2;
+    public static final int IS95_CONST_IR_SIGNAL_USR_DEFD_ALERT = 4;
+
+    // public final int int IS95_CONST_IR_ALERT_PITCH_TYPE;
+    public static final int IS95_CONST_IR_ALERT_MED = 0;
+    public static final int IS95_CONST_IR_ALERT_HIGH = 1;
+    public static final int IS95_CONST_IR_ALERT_LOW = 2;
+
+    // Based on 3GPP2 C.S0005-E, seciton 3.7.5.5 Signal,
+    // set TAPIAMSSCDMA_SIGNAL_PITCH_UNKNOWN to 0 to avoid
+    // the alert pitch to be involved in hash calculation for
+    // signal type other than IS54B.
+    public static final int TAPIAMSSCDMA_SIGNAL_PITCH_UNKNOWN = 0;
+
+    // public final int int IS95_CONST_IR_SIGNAL_TYPE;
+    public static final int IS95_CONST_IR_SIG_IS54B_NO_TONE = 0;
+    public static final int IS95_CONST_IR_SIG_IS54B_L = 1;
+    public static final int IS95_CONST_IR_SIG_IS54B_SS = 2;
+    public static final int IS95_CONST_IR_SIG_IS54B_SSL = 3;
+    public static final int IS95_CONST_IR_SIG_IS54B_SS_2 = 4;
+    public static final int IS95_CONST_IR_SIG_IS54B_SLS = 5;
+    public static final int IS95_CONST_IR_SIG_IS54B_S_X4 = 6;
+    public static final int IS95_CONST_IR_SIG_IS54B_PBX_L = 7;
+    public static final int IS95_CONST_IR_SIG_IS54B_PBX_SS = 8;
+    public static final int IS95_CONST_IR_SIG_IS54B_PBX_SSL = 9;
+    public static final int IS95_CONST_IR_SIG_IS54B_PBX_SLS = 10;
+    public static final int IS95_CONST_IR_SIG_IS54B_PBX_S_X4 = 11;
+}
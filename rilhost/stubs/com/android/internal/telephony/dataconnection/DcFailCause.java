@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony.dataconnection;
+
+/** Host stand-in for DcFailCause with the codes the RIL reports. */
+public enum DcFailCause {
+    NONE(0),
+    OPERATOR_BARRED(0x08),
+    INSUFFICIENT_RESOURCES(0x1A),
+    MISSING_UNKNOWN_APN(0x1B),
+    UNKNOWN_PDP_ADDRESS_TYPE(0x1C),
+    USER_AUTHENTICATION(0x1D),
+    ACTIVATION_REJECT_GGSN(0x1E),
+    ACTIVATION_REJECT_UNSPECIFIED(0x1F),
+    SERVICE_OPTION_NOT_SUPPORTED(0x20),
+    SERVICE_OPTION_NOT_SUBSCRIBED(0x21),
+    SERVICE_OPTION_OUT_OF_ORDER(0x22),
+    NSAPI_IN_USE(0x23),
+    PROTOCOL_ERRORS(0x6F),
+    REGISTRATION_FAIL(-1),
+    GPRS_REGISTRATION_FAIL(-2),
+    SIGNAL_LOST(-3),
+    PREF_RADIO_TECH_CHANGED(-4),
+    RADIO_POWER_OFF(-5),
+    TETHERED_CALL_ACTIVE(-6),
+    ERROR_UNSPECIFIED(0xFFFF);
+
+    private final int mErrorCode;
+
+    DcFailCause(int errorCode) {
+        mErrorCode = errorCode;
+    }
+
+    public int getErrorCode() {
+        return mErrorCode;
+    }
+
+    public static DcFailCause fromInt(int errorCode) {
+        for (DcFailCause fc : values()) {
+            if (fc.mErrorCode == errorCode) {
+                return fc;
+            }
+        }
+        return ERROR_UNSPECIFIED;
+    }
+}
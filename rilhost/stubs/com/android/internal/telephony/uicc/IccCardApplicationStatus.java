@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony.uicc;
+
+/**
+ * Host stand-in for IccCardApplicationStatus. The enums are kept as the
+ * raw RIL ints, which is all a host decode needs.
+ */
+public class IccCardApplicationStatus {
+    public int app_type;
+    public int app_state;
+    public int perso_substate;
+    public String aid;
+    public String app_label;
+    public int pin1_replaced;
+    public int pin1;
+    public int pin2;
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony.uicc;
+
+/** Host port of IccCardStatus. */
+public class IccCardStatus {
+    public static final int CARD_MAX_APPS = 8;
+
+    public enum CardState {
+        CARDSTATE_ABSENT,
+        CARDSTATE_PRESENT,
+        CARDSTATE_ERROR;
+
+        boolean isCardPresent() {
+            return this == CARDSTATE_PRESENT;
+        }
+    }
+
+    public CardState  mCardState;
+    public int        mUniversalPinState;
+    public int        mGsmUmtsSubscriptionAppIndex;
+    public int        mCdmaSubscriptionAppIndex;
+    public int        mImsSubscriptionAppIndex;
+
+    public IccCardApplicationStatus[] mApplications;
+
+    public void setCardState(int state) {
+        switch(state) {
+        case 0:
+            mCardState = CardState.CARDSTATE_ABSENT;
+            break;
+        case 1:
+            mCardState = CardState.CARDSTATE_PRESENT;
+            break;
+        case 2:
+            mCardState = CardState.CARDSTATE_ERROR;
+            break;
+        default:
+            throw new RuntimeException("Unrecognized RIL_CardState: " + state);
+        }
+    }
+
+    public void setUniversalPinState(int state) {
+        mUniversalPinState = state;
+    }
+
+    @Override
+    public String toString() {
+        return "IccCardState {" + mCardState + "," + mUniversalPinState
+                + ",num_apps=" + (mApplications != null ? mApplications.length : 0)
+                + ",gsm_id=" + mGsmUmtsSubscriptionAppIndex
+                + ",cdma_id=" + mCdmaSubscriptionAppIndex
+                + ",ims_id=" + mImsSubscriptionAppIndex + "}";
+    }
+}
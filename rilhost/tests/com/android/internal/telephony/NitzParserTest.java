@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2013 The CyanogenMod Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.internal.telephony;
+
+import junit.framework.TestCase;
+
+/**
+ * NitzParser against the split() based code it replaced, over NITZ
+ * strings from AOSP and Samsung basebands.
+ */
+public class NitzParserTest extends TestCase {
+
+    // { as received, as handed to the framework,
+    //   "yy mm dd hh mm ss tz dst" with -1 for absent or malformed }
+    private static final String[][] CORPUS = {
+        // AOSP reference-ril and Qualcomm basebands
+        { "13/10/17,12:30:00+8,00", "13/10/17,12:30:00+8,00", "13 10 17 12 30 0 8 0" },
+        { "13/11/03,07:00:00-20,01", "13/11/03,07:00:00-20,01", "13 11 3 7 0 0 -20 1" },
+        { "14/01/01,00:00:00+0,00", "14/01/01,00:00:00+0,00", "14 1 1 0 0 0 0 0" },
+        { "14/03/30,01:59:59+4", "14/03/30,01:59:59+4", "14 3 30 1 59 59 4 -1" },
+        { "13/12/31,23:59:59-32", "13/12/31,23:59:59-32", "13 12 31 23 59 59 -32 -1" },
+        { "13/06/21,18:45:10+22,00", "13/06/21,18:45:10+22,00", "13 6 21 18 45 10 22 0" },
+
+        // Samsung basebands, trailing field stripped
+        { "13/10/17,12:30:00+8,00,0", "13/10/17,12:30:00+8,00", "13 10 17 12 30 0 8 0" },
+        { "13/06/08,04:50:37+36,01,1", "13/06/08,04:50:37+36,01", "13 6 8 4 50 37 36 1" },
+        { "13/11/03,07:00:00-20,01,0", "13/11/03,07:00:00-20,01", "13 11 3 7 0 0 -20 1" },
+        { "14/02/14,09:05:03+0,00,310260", "14/02/14,09:05:03+0,00", "14 2 14 9 5 3 0 0" },
+        { "13/09/01,10:00:00+4,01,00", "13/09/01,10:00:00+4,01", "13 9 1 10 0 0 4 1" },
+
+        // Missing DST
+        { "13/10/17,12:30:00+8", "13/10/17,12:30:00+8", "13 10 17 12 30 0 8 -1" },
+        { "13/10/17,12:30:00-8", "13/10/17,12:30:00-8", "13 10 17 12 30 0 -8 -1" },
+
+        // Trailing commas are empty fields, they are not counted
+        { "13/10/17,12:30:00+8,", "13/10/17,12:30:00+8,", "13 10 17 12 30 0 8 -1" },
+        { "13/10/17,12:30:00+8,00,", "13/10/17,12:30:00+8,00,", "13 10 17 12 30 0 8 0" },
+        { "13/10/17,12:30:00+8,00,,", "13/10/17,12:30:00+8,00,,", "13 10 17 12 30 0 8 0" },
+        { "13/10/17,12:30:00+8,00,0,", "13/10/17,12:30:00+8,00,0", "13 10 17 12 30 0 8 0" },
+
+        // Malformed zone
+        { "13/10/17,12:30:00+x,00", "13/10/17,12:30:00+x,00", "13 10 17 12 30 0 0 0" },
+        { "13/10/17,12:30:00+8a,00", "13/10/17,12:30:00+8a,00", "13 10 17 12 30 0 0 0" },
+        { "13/10/17,12:30:00+,00", "13/10/17,12:30:00+,00", "13 10 17 12 30 0 0 0" },
+        { "13/10/17,12:30:00+x,00,0", "13/10/17,12:30:00+x,00", "13 10 17 12 30 0 0 0" },
+        { "13/10/17,12:30:00", "13/10/17,12:30:00", "13 10 17 12 30 0 0 -1" },
+    };
+
+    private NitzParser mParser;
+
+    @Override
+    protected void setUp() throws Exception {
+        mParser = new NitzParser();
+    }
+
+    // The code NitzParser replaced in SamsungRIL.processUnsolicited
+    private static String
+    splitNormalize(String nitz) {
+        if (nitz.split("[/:,+-]").length >= 9) {
+            nitz = nitz.substring(0, nitz.lastIndexOf(","));
+        }
+        return nitz;
+    }
+
+    public void testCorpusMatchesSplit() {
+        for (String[] entry : CORPUS) {
+            String nitz = entry[0];
+
+            assertEquals(nitz, entry[1], mParser.normalize(nitz));
+            assertEquals(nitz, splitNormalize(nitz), mParser.normalize(nitz));
+        }
+    }
+
+    public void testFieldCountMatchesSplit() {
+        for (String[] entry : CORPUS) {
+            String stripped = mParser.normalize(entry[0]);
+
+            assertEquals(entry[0], stripped.split("[/:,+-]").length,
+                    mParser.getFieldCount());
+        }
+    }
+
+    public void testCorpusFields() {
+        for (String[] entry : CORPUS) {
+            String[] expected = entry[2].split(" ");
+
+            mParser.normalize(entry[0]);
+            assertEquals(entry[0], Integer.parseInt(expected[0]), mParser.getYear());
+            assertEquals(entry[0], Integer.parseInt(expected[1]), mParser.getMonth());
+            assertEquals(entry[0], Integer.parseInt(expected[2]), mParser.getDay());
+            assertEquals(entry[0], Integer.parseInt(expected[3]), mParser.getHour());
+            assertEquals(entry[0], Integer.parseInt(expected[4]), mParser.getMinute());
+            assertEquals(entry[0], Integer.parseInt(expected[5]), mParser.getSecond());
+            assertEquals(entry[0], Integer.parseInt(expected[6]), mParser.getTzQuarterHours());
+            assertEquals(entry[0], Integer.parseInt(expected[7]), mParser.getDst());
+        }
+    }
+
+    public void testUnchangedStringIsSameInstance() {
+        String nitz = "13/10/17,12:30:00+8,00";
+
+        assertSame(nitz, mParser.normalize(nitz));
+    }
+
+    public void testMalformedZone() {
+        mParser.normalize("13/10/17,12:30:00+x,00");
+        assertFalse(mParser.hasTz());
+        assertEquals(0, mParser.getTzQuarterHours());
+
+        mParser.normalize("13/10/17,12:30:00-20,01");
+        assertTrue(mParser.hasTz());
+        assertEquals(-20, mParser.getTzQuarterHours());
+    }
+
+    public void testFieldsResetBetweenStrings() {
+        mParser.normalize("13/11/03,07:00:00-20,01,0");
+        mParser.normalize("14/03/30,01:59:59+4");
+
+        assertEquals(4, mParser.getTzQuarterHours());
+        assertEquals(-1, mParser.getDst());
+    }
+
+    public void testEmpty() {
+        assertEquals("", mParser.normalize(""));
+        assertEquals(0, mParser.getFieldCount());
+        assertEquals(-1, mParser.getYear());
+    }
+}